@@ -0,0 +1,251 @@
+import java.util.*;
+
+/**
+ * Classe que implementa o algoritmo Anytime Repairing A* (ARA*).
+ * A procura começa por um A* ponderado, que ordena os estados por g + w * h com um peso w grande e
+ * encontra rapidamente uma primeira solução com custo no máximo w vezes o ótimo. Depois reduz o peso
+ * e repete a procura sem a começar de novo: os estados já conhecidos mantêm o seu custo, e só voltam
+ * a ser expandidos os que melhoraram desde a sua última expansão (guardados na lista de inconsistentes).
+ * Cada solução é comunicada a um listener com o seu limite de subotimalidade, e o listener pode
+ * terminar a procura quando a solução for suficiente ou o tempo disponível acabar
+ * (Likhachev, Gordon e Thrun, "ARA*: Anytime A* with Provable Bounds on Sub-Optimality", NIPS 2003).
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ * @inv known contém o melhor estado conhecido de cada layout; um estado está em fechados se foi
+ *      expandido na iteração atual e em inconsistentes se melhorou depois de ter sido expandido.
+ */
+class ARAStar {
+    private final double initialWeight;
+    private final double step;
+    private Ilayout objective;
+    private double weight;
+    private PriorityQueue<Entry> abertos;
+    private Map<Long, BestFirst.State> known;
+    private Set<Long> fechados;
+    private Map<Long, BestFirst.State> inconsistentes;
+    private BestFirst.State incumbent;
+
+    /**
+     * Recebe as soluções encontradas pela procura.
+     */
+    @FunctionalInterface
+    interface SolutionListener {
+
+        /**
+         * Chamado no fim de cada iteração que encontrou uma solução melhor do que a anterior.
+         *
+         * @param solution O estado objetivo da melhor solução encontrada até agora.
+         * @param bound O limite de subotimalidade: o custo da solução não excede bound vezes o custo ótimo.
+         * @return true para continuar a melhorar a solução; false para terminar a procura.
+         */
+        boolean solutionFound(BestFirst.State solution, double bound);
+    }
+
+    /**
+     * Entrada da lista de abertos com a prioridade calculada com o peso da iteração em que foi criada.
+     */
+    private static final class Entry {
+        private final BestFirst.State state;
+        private final long key;
+        private final double priority;
+
+        private Entry(BestFirst.State state, long key, double priority) {
+            this.state = state;
+            this.key = key;
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * Construtor que começa com peso 3 e o reduz em 0,5 a cada iteração.
+     */
+    public ARAStar() {
+        this(3.0, 0.5);
+    }
+
+    /**
+     * Construtor que permite escolher o peso inicial e a redução do peso a cada iteração.
+     *
+     * @param initialWeight O peso da heurística na primeira iteração.
+     * @param step O valor subtraído ao peso a cada iteração, até chegar a 1.
+     * @throws IllegalArgumentException Se o peso for menor do que 1 ou a redução não for positiva.
+     */
+    public ARAStar(double initialWeight, double step) {
+        if (initialWeight < 1.0) throw new IllegalArgumentException("Peso inválido: " + initialWeight);
+        if (step <= 0.0) throw new IllegalArgumentException("Redução do peso inválida: " + step);
+        this.initialWeight = initialWeight;
+        this.step = step;
+    }
+
+    /**
+     * Resolve o problema até encontrar a solução ótima.
+     *
+     * @param s O layout inicial.
+     * @param goal O layout objetivo.
+     * @return Um iterador sobre a sequência de estados que leva à solução, ou null se não houver solução.
+     */
+    public Iterator<BestFirst.State> solve(Ilayout s, Ilayout goal) {
+        return solve(s, goal, (solution, bound) -> true);
+    }
+
+    /**
+     * Resolve o problema, comunicando cada nova solução ao listener, até o peso chegar a 1 ou o listener
+     * pedir para terminar.
+     *
+     * @param s O layout inicial.
+     * @param goal O layout objetivo.
+     * @param listener O listener que recebe cada solução e decide se a procura continua.
+     * @return Um iterador sobre a sequência de estados que leva à melhor solução encontrada,
+     *         ou null se não houver solução.
+     */
+    public Iterator<BestFirst.State> solve(Ilayout s, Ilayout goal, SolutionListener listener) {
+        objective = goal;
+        weight = initialWeight;
+        abertos = new PriorityQueue<>((e1, e2) -> {
+            int c = Double.compare(e1.priority, e2.priority);
+            return c != 0 ? c : Double.compare(e2.state.getG(), e1.state.getG());
+        });
+        known = new HashMap<>();
+        fechados = new HashSet<>();
+        inconsistentes = new HashMap<>();
+        incumbent = null;
+
+        BestFirst.State root = new BestFirst.State(s, null, s.heuristic(objective));
+        known.put(s.key(), root);
+        if (s.isGoal(objective)) incumbent = root;
+        abertos.add(entry(root, s.key()));
+
+        BestFirst.State reported = null;
+        while (true) {
+            improvePath();
+            if (incumbent == null) return null;
+            if (incumbent != reported) {
+                reported = incumbent;
+                if (!listener.solutionFound(incumbent, bound())) break;
+            }
+            if (weight <= 1.0) break;
+
+            // Reduz o peso e volta a abrir os estados inconsistentes, sem esquecer os custos conhecidos
+            weight = Math.max(1.0, weight - step);
+            List<Entry> pending = new ArrayList<>(abertos);
+            abertos.clear();
+            for (Entry e : pending) {
+                if (isOpen(e)) abertos.add(entry(e.state, e.key));
+            }
+            for (Map.Entry<Long, BestFirst.State> e : inconsistentes.entrySet()) {
+                abertos.add(entry(e.getValue(), e.getKey()));
+            }
+            inconsistentes.clear();
+            fechados.clear();
+        }
+
+        List<BestFirst.State> solutionPath = new ArrayList<>();
+        for (BestFirst.State current = incumbent; current != null; current = current.getFather()) {
+            solutionPath.add(current);
+        }
+        Collections.reverse(solutionPath);
+        return solutionPath.iterator();
+    }
+
+    /**
+     * Expande estados pela ordem de g + w * h até que a solução atual não seja pior do que
+     * a prioridade de qualquer estado aberto.
+     */
+    private void improvePath() {
+        while (true) {
+            Entry top = top();
+            if (top == null || (incumbent != null && incumbent.getG() <= top.priority)) return;
+            abertos.poll();
+            fechados.add(top.key);
+
+            BestFirst.State n = top.state;
+            BestFirst.State father = n.getFather();
+            boolean hasFather = father != null;
+            long fatherKey = hasFather ? father.getLayout().key() : 0;
+            n.getLayout().forEachMove((move, key, cost) -> {
+                if (hasFather && key == fatherKey) return;
+                double g = n.getG() + cost;
+                BestFirst.State best = known.get(key);
+                if (best != null && g >= best.getG()) return;
+
+                Ilayout e = n.getLayout().applyMove(move);
+                BestFirst.State child = new BestFirst.State(e, n, e.heuristic(objective, n.getH()));
+                known.put(key, child);
+                if (e.isGoal(objective) && (incumbent == null || g < incumbent.getG())) incumbent = child;
+                if (fechados.contains(key)) {
+                    inconsistentes.put(key, child);
+                } else {
+                    abertos.add(entry(child, key));
+                }
+            });
+        }
+    }
+
+    /**
+     * Retira do topo da lista de abertos as entradas de estados já expandidos nesta iteração ou
+     * substituídos por caminhos melhores, e retorna a primeira entrada válida.
+     *
+     * @return A entrada válida de menor prioridade, ou null se não houver estados abertos.
+     */
+    private Entry top() {
+        while (!abertos.isEmpty() && !isOpen(abertos.peek())) {
+            abertos.poll();
+        }
+        return abertos.peek();
+    }
+
+    /**
+     * Verifica se uma entrada ainda representa o melhor estado conhecido do seu layout e se esse
+     * layout não foi expandido nesta iteração.
+     *
+     * @param e A entrada.
+     * @return true se a entrada for válida.
+     */
+    private boolean isOpen(Entry e) {
+        return known.get(e.key) == e.state && !fechados.contains(e.key);
+    }
+
+    /**
+     * Calcula o limite de subotimalidade da solução atual: o menor entre o peso atual e a razão entre o custo
+     * da solução e o limite inferior do custo ótimo, nunca menor do que 1. Se a solução tem custo 0 ou não
+     * há estados por expandir, a solução é ótima.
+     *
+     * @return O limite de subotimalidade.
+     */
+    private double bound() {
+        double lower = lowerBound();
+        if (incumbent.getG() == 0 || Double.isInfinite(lower)) return 1.0;
+        return Math.max(1.0, Math.min(weight, incumbent.getG() / lower));
+    }
+
+    /**
+     * Calcula o menor g + h dos estados abertos e inconsistentes, que é um limite inferior do custo ótimo
+     * para heurísticas admissíveis.
+     *
+     * @return O limite inferior, ou infinito se não houver estados por expandir.
+     */
+    private double lowerBound() {
+        double min = Double.POSITIVE_INFINITY;
+        for (Entry e : abertos) {
+            if (isOpen(e)) min = Math.min(min, e.state.getF());
+        }
+        for (BestFirst.State st : inconsistentes.values()) {
+            min = Math.min(min, st.getF());
+        }
+        return min;
+    }
+
+    /**
+     * Cria a entrada de um estado com a prioridade do peso atual.
+     *
+     * @param st O estado.
+     * @param key A chave do layout do estado.
+     * @return A entrada a colocar na lista de abertos.
+     */
+    private Entry entry(BestFirst.State st, long key) {
+        return new Entry(st, key, st.getG() + weight * st.getH());
+    }
+}
@@ -0,0 +1,53 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+
+/**
+ * Testes do ARA*: o custo da solução final é comparado com o da procura Best-First, e cada solução comunicada
+ * ao listener tem de ser melhor do que a anterior, com um limite de subotimalidade válido.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ */
+class ARAStarTest {
+
+    @Test
+    void testCustoOtimoELimites() {
+        Random random = new Random(17);
+        for (int instance = 0; instance < 30; instance++) {
+            Container start = new Container(TestInstances.randomConfig(random, 6, true));
+            Container goal = new Container(TestInstances.randomConfig(random, 6, false));
+            List<Double> costs = new ArrayList<>();
+            List<Double> bounds = new ArrayList<>();
+            Iterator<BestFirst.State> it = new ARAStar().solve(start, goal, (solution, bound) -> {
+                costs.add(solution.getG());
+                bounds.add(bound);
+                return true;
+            });
+
+            double expected = TestInstances.cost(new BestFirst().solve(start, goal), goal);
+            assertEquals(expected, TestInstances.cost(it, goal), start.canonical());
+            assertEquals(expected, (double) costs.get(costs.size() - 1));
+            for (int i = 0; i < bounds.size(); i++) {
+                assertTrue(bounds.get(i) >= 1.0, "Limite menor do que 1: " + bounds.get(i));
+                // O custo ótimo nunca é menor do que custo / limite
+                assertTrue(costs.get(i) <= bounds.get(i) * expected + 1e-9, "Limite violado: " + bounds.get(i));
+                if (i > 0) {
+                    assertTrue(costs.get(i) < costs.get(i - 1), "Solução repetida: " + costs.get(i));
+                    assertTrue(bounds.get(i) <= bounds.get(i - 1), "Limite aumentou: " + bounds);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testInicialJaEObjetivo() {
+        List<Double> bounds = new ArrayList<>();
+        Iterator<BestFirst.State> it = new ARAStar().solve(new Container("A1 B1"), new Container("A B"),
+                (solution, bound) -> bounds.add(bound));
+        assertEquals(0.0, TestInstances.cost(it, new Container("A B")));
+        assertEquals(List.of(1.0), bounds);
+    }
+}
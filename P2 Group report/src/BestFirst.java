@@ -1,9 +1,19 @@
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 
 /**
  * Classe que implementa o algoritmo de busca Best-First para encontrar o caminho
  * mais curto entre um layout inicial e um layout objetivo.
- * Utiliza uma fila de prioridade para ordenar estados com base em um valor heurístico.
+ * Utiliza uma lista de abertos (OpenList) para ordenar estados com base em f(n) = g(n) + h(n),
+ * em baldes quando os custos são inteiros ou numa fila de prioridade nos restantes casos.
+ * Os estados abertos e fechados são identificados pela chave do layout (Ilayout.key()), o que permite
+ * descartar os sucessores já conhecidos antes de criar os seus layouts, e guardados em mapas de chaves
+ * primitivas (LongObjectMap), sem criar um Long por cada sucessor gerado.
+ * Opcionalmente, os estados fechados são guardados fora do heap (OffHeapClosedSet), apenas com a chave, o pai,
+ * o movimento e o custo, o que permite resolver instâncias cujos estados fechados não caberiam no heap.
+ * A procura pode ser limitada por um tempo limite e por um número máximo de estados expandidos, e termina
+ * também quando a thread é interrompida; nesses casos retorna um SearchResult com o motivo e as estatísticas.
  *
  * @author Andreia Qiu 79856
  * @author Eduarda Pereira 79749
@@ -15,11 +25,41 @@ import java.util.*;
  *
  */
 class BestFirst {
-    protected PriorityQueue<State> abertos;
-    private HashSet<Ilayout> abertosSet;
-    private Map<Ilayout, State> fechados;
+    protected OpenList abertos;
+    private final boolean integerCosts;
+    private final boolean compactClosed;
+    private SearchListener listener;
+    private LongObjectMap<State> abertosMap;
+    private LongObjectMap<State> fechados;
+    private OffHeapClosedSet fechadosCompactos;
     private State actual;
-    private static Ilayout objective;
+    private Ilayout objective;
+    private long deadline;
+    private boolean timed;
+    private long maxExpanded;
+    private ProgressListener progress;
+    private long progressInterval;
+    private long nextProgress;
+    private long startNanos;
+    private long expanded;
+    private long generated;
+    private double bestF;
+    private long heuristicNanos;
+
+    /**
+     * Recebe periodicamente o progresso de uma procura com limites.
+     */
+    @FunctionalInterface
+    interface ProgressListener {
+
+        /**
+         * Chamado, no máximo, uma vez por intervalo, na thread da procura.
+         *
+         * @param bestF O maior f dos estados retirados da lista de abertos até agora.
+         * @param expanded O número de estados expandidos até agora.
+         */
+        void progress(double bestF, long expanded);
+    }
 
     /**
      * Classe interna que representa um estado no espaço de busca.
@@ -28,6 +68,7 @@ class BestFirst {
         private Ilayout layout;
         private State father;
         private double g;
+        private double h;
         /**
          * Retorna o layout associado ao estado.
          *
@@ -45,6 +86,17 @@ class BestFirst {
          * @param n O estado pai do estado atual.
          */
         public State(Ilayout l, State n) {
+            this(l, n, 0.0);
+        }
+
+        /**
+         * Construtor que cria um novo estado com a heurística já calculada em relação ao objetivo.
+         *
+         * @param l O layout associado ao estado.
+         * @param n O estado pai do estado atual.
+         * @param h O valor heurístico do layout.
+         */
+        public State(Ilayout l, State n, double h) {
             layout = l;
             father = n;
             if (father != null) {
@@ -52,6 +104,29 @@ class BestFirst {
             } else {
                 g = 0.0;
             }
+            this.h = h;
+        }
+
+        /**
+         * Construtor que cria um estado sem pai com o custo já calculado, usado pelos estados compactos.
+         *
+         * @param l O layout associado ao estado.
+         * @param g O custo do caminho até ao estado.
+         * @param h O valor heurístico do layout.
+         */
+        private State(Ilayout l, double g, double h) {
+            layout = l;
+            this.g = g;
+            this.h = h;
+        }
+
+        /**
+         * Retorna o estado pai.
+         *
+         * @return O estado a partir do qual este foi gerado, ou null na raiz.
+         */
+        public State getFather() {
+            return father;
         }
 
         /**
@@ -60,7 +135,16 @@ class BestFirst {
          * @return O valor f(n) do estado.
          */
         public double getF() {
-            return this.g + this.layout.heuristic(objective);
+            return this.g + getH();
+        }
+
+        /**
+         * Retorna a heurística do estado em relação ao objetivo, calculada quando o estado foi criado.
+         *
+         * @return O valor heurístico h(n) do estado (0 se o estado foi criado sem heurística).
+         */
+        public double getH() {
+            return h;
         }
 
         /**
@@ -96,48 +180,264 @@ class BestFirst {
     }
 
     /**
-     * Gera os sucessores de um estado dado.
-     * @param n O estado do qual os sucessores serão gerados.
-     * @return Uma lista de estados sucessores.
+     * Estado aberto da procura com fechados compactos. Em vez de uma referência ao pai, que manteria no heap
+     * toda a árvore de procura, guarda a chave do pai e o movimento que o gerou.
      */
-    private List<State> sucessores(State n) {
-        List<State> sucs = new ArrayList<>();
-        List<Ilayout> children = n.layout.children();
-        for (Ilayout e : children) {
-            if (n.father == null || !e.equals(n.father.layout)) {
-                State nn = new State(e, n);
-                sucs.add(nn);
-            }
+    private static final class CompactState extends State {
+        private static final int ROOT = -1;
+        private final long fatherKey;
+        private final int move;
+
+        private CompactState(Ilayout l, double g, double h, long fatherKey, int move) {
+            super(l, g, h);
+            this.fatherKey = fatherKey;
+            this.move = move;
         }
-        return sucs;
+    }
+
+    /**
+     * Construtor que cria uma procura para custos e heurísticas inteiros, como os dos contentores,
+     * usando uma lista de abertos em baldes.
+     */
+    public BestFirst() {
+        this(true);
+    }
+
+    /**
+     * Construtor que permite escolher a lista de abertos.
+     *
+     * @param integerCosts true se os custos e a heurística forem sempre inteiros (lista em baldes);
+     *                     false para usar uma fila de prioridade, que aceita qualquer custo.
+     */
+    public BestFirst(boolean integerCosts) {
+        this(integerCosts, false);
+    }
+
+    /**
+     * Construtor que permite escolher a lista de abertos e onde são guardados os estados fechados.
+     *
+     * @param integerCosts true se os custos e a heurística forem sempre inteiros (lista em baldes);
+     *                     false para usar uma fila de prioridade, que aceita qualquer custo.
+     * @param compactClosed true para guardar os estados fechados fora do heap.
+     */
+    public BestFirst(boolean integerCosts, boolean compactClosed) {
+        this.integerCosts = integerCosts;
+        this.compactClosed = compactClosed;
+    }
+
+    /**
+     * Define o listener que recebe os eventos das próximas procuras.
+     *
+     * @param listener O listener, ou null para não medir nada.
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Expande um estado: percorre os seus movimentos com forEachMove() e só cria o layout, calcula a
+     * heurística e abre o estado dos sucessores que não são o pai nem um layout já alcançado com custo
+     * igual ou menor. A heurística de cada sucessor é calculada a partir da do pai, recalculando apenas
+     * o que mudou com o movimento. Com um listener, avisa-o de cada sucessor aberto e de cada duplicado
+     * descartado e mede o tempo gasto a gerar os sucessores e a calcular a heurística.
+     * @param n O estado a expandir.
+     */
+    private void expandir(State n) {
+        long fatherKey = n.father == null ? 0 : n.father.layout.key();
+        boolean hasFather = n.father != null;
+        SearchListener l = listener;
+        long t0 = l == null ? 0 : System.nanoTime();
+        heuristicNanos = 0;
+        n.layout.forEachMove((move, key, cost) -> {
+            if (hasFather && key == fatherKey) return;
+            double g = n.g + cost;
+            State known = abertosMap.get(key);
+            if (known == null) known = fechados.get(key);
+            // Um layout já conhecido só volta à lista de abertos se for alcançado com menor custo
+            if (known != null && g >= known.g) {
+                if (l != null) l.duplicateDetected(key, g);
+                return;
+            }
+
+            Ilayout e = n.layout.applyMove(move);
+            State child = new State(e, n, heuristic(e, n.h, l));
+            if (l != null) l.stateGenerated(child);
+            open(child, key);
+        });
+        if (l != null) reportTimes(l, t0);
+    }
+
+    /**
+     * Calcula a heurística de um sucessor a partir da do pai, somando o tempo gasto a heuristicNanos
+     * quando há um listener.
+     * @param e O layout do sucessor.
+     * @param parentH O valor heurístico do pai.
+     * @param l O listener da procura, ou null.
+     * @return O valor heurístico do sucessor.
+     */
+    private double heuristic(Ilayout e, double parentH, SearchListener l) {
+        if (l == null) return e.heuristic(objective, parentH);
+        long t = System.nanoTime();
+        double h = e.heuristic(objective, parentH);
+        heuristicNanos += System.nanoTime() - t;
+        return h;
+    }
+
+    /**
+     * Comunica ao listener o tempo gasto na expansão que começou em t0, separando o tempo da heurística
+     * do tempo gasto a gerar os sucessores.
+     * @param l O listener.
+     * @param t0 O instante (System.nanoTime()) em que a expansão começou.
+     */
+    private void reportTimes(SearchListener l, long t0) {
+        long total = System.nanoTime() - t0;
+        l.childrenTime(total - heuristicNanos);
+        l.heuristicTime(heuristicNanos);
+    }
+
+    /**
+     * Abre um estado, substituindo o que existisse para o mesmo layout.
+     * @param st O estado a abrir.
+     * @param key A chave do layout do estado.
+     */
+    private void open(State st, long key) {
+        generated++;
+        fechados.remove(key);
+        abertosMap.put(key, st);
+        abertos.add(st);
     }
 
     /**
      * Resolve o problema a partir de um layout inicial até um layout objetivo.
      * @param s O layout inicial.
      * @param goal O layout objetivo.
-     * @return Um iterador sobre a sequência de estados que leva à solução.
+     * @return Um iterador sobre a sequência de estados que leva à solução, ou null se não houver solução.
+     * @throws CancellationException Se a thread da procura for interrompida antes de a procura terminar;
+     *                               o estado de interrupção da thread é mantido.
      */
     public Iterator<State> solve(Ilayout s, Ilayout goal) {
-        objective = goal;
+        SearchResult result = solve(s, goal, null, Long.MAX_VALUE);
+        if (result.getStatus() == SearchResult.Status.INTERRUPTED) {
+            throw new CancellationException("Procura interrompida");
+        }
+        return result.isSolved() ? result.getPath().iterator() : null;
+    }
+
+    /**
+     * Resolve o problema sem ultrapassar um tempo limite nem um número máximo de estados expandidos.
+     * @param s O layout inicial.
+     * @param goal O layout objetivo.
+     * @param timeout O tempo máximo da procura, ou null para não limitar o tempo.
+     * @param maxExpanded O número máximo de estados expandidos.
+     * @return O resultado da procura.
+     */
+    public SearchResult solve(Ilayout s, Ilayout goal, Duration timeout, long maxExpanded) {
+        return solve(s, goal, timeout, maxExpanded, null, null);
+    }
 
-        abertos = new PriorityQueue<>(10,
-                (s1, s2) -> {
-                    double f1 = s1.getF();
-                    double f2 = s2.getF();
+    /**
+     * Resolve o problema sem ultrapassar um tempo limite nem um número máximo de estados expandidos,
+     * comunicando o progresso a um listener a intervalos regulares. Os limites e a interrupção da thread
+     * são verificados antes de cada expansão; a thread continua interrompida quando a procura termina
+     * por esse motivo.
+     * @param s O layout inicial.
+     * @param goal O layout objetivo.
+     * @param timeout O tempo máximo da procura, ou null para não limitar o tempo.
+     * @param maxExpanded O número máximo de estados expandidos.
+     * @param progress O listener do progresso, ou null.
+     * @param interval O intervalo entre as chamadas ao listener do progresso (ignorado se progress for null).
+     * @return O resultado da procura.
+     * @throws IllegalArgumentException Se o número máximo de estados for negativo ou o intervalo não for positivo.
+     */
+    public SearchResult solve(Ilayout s, Ilayout goal, Duration timeout, long maxExpanded,
+                              ProgressListener progress, Duration interval) {
+        if (maxExpanded < 0) throw new IllegalArgumentException("Número de estados inválido: " + maxExpanded);
+        if (progress != null && (interval == null || interval.isNegative() || interval.isZero())) {
+            throw new IllegalArgumentException("Intervalo inválido: " + interval);
+        }
+        startNanos = System.nanoTime();
+        timed = timeout != null || progress != null;
+        // Sem tempo limite, o prazo fica tão longe como o maior tempo limite, para que now - deadline não transborde
+        deadline = startNanos + (timeout == null ? Long.MAX_VALUE / 2 : saturatedNanos(timeout));
+        this.maxExpanded = maxExpanded;
+        this.progress = progress;
+        progressInterval = progress == null ? 0 : saturatedNanos(interval);
+        nextProgress = startNanos + progressInterval;
+        expanded = 0;
+        generated = 0;
+        bestF = 0.0;
+        return compactClosed ? searchCompact(s, goal) : search(s, goal);
+    }
 
-                    return (int) Math.signum(f1 - f2);
-                });
-        abertosSet = new HashSet<>();
-        fechados = new HashMap<>();
-        abertos.add(new State(s, null));
-        abertosSet.add(s);
+    /**
+     * Converte uma duração em nanossegundos, limitando-a a cerca de 146 anos.
+     * @param d A duração.
+     * @return A duração em nanossegundos.
+     */
+    private static long saturatedNanos(Duration d) {
+        return d.compareTo(Duration.ofNanos(Long.MAX_VALUE / 2)) > 0 ? Long.MAX_VALUE / 2 : Math.max(0, d.toNanos());
+    }
+
+    /**
+     * Verifica os limites da procura antes da expansão de um estado e comunica o progresso quando
+     * passou o intervalo.
+     * @param n O estado que vai ser expandido.
+     * @return O motivo para terminar a procura, ou null se o estado pode ser expandido.
+     */
+    private SearchResult.Status limitReached(State n) {
+        bestF = Math.max(bestF, n.getF());
+        if (expanded >= maxExpanded) return SearchResult.Status.NODE_LIMIT;
+        if (Thread.currentThread().isInterrupted()) return SearchResult.Status.INTERRUPTED;
+        if (timed) {
+            long now = System.nanoTime();
+            if (now - deadline >= 0) return SearchResult.Status.TIMED_OUT;
+            if (progress != null && now - nextProgress >= 0) {
+                progress.progress(bestF, expanded);
+                nextProgress = now + progressInterval;
+            }
+        }
+        expanded++;
+        return null;
+    }
+
+    /**
+     * Cria o resultado da procura com as estatísticas acumuladas.
+     * @param status O motivo pelo qual a procura terminou.
+     * @param path A sequência de estados da solução, ou null.
+     * @return O resultado da procura.
+     */
+    private SearchResult result(SearchResult.Status status, List<State> path) {
+        return new SearchResult(status, path, expanded, generated, bestF, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Ciclo principal da procura com os estados fechados no heap.
+     * @param s O layout inicial.
+     * @param goal O layout objetivo.
+     * @return O resultado da procura.
+     */
+    private SearchResult search(Ilayout s, Ilayout goal) {
+        objective = goal;
+
+        abertos = integerCosts ? new BucketOpenList() : new HeapOpenList();
+        abertosMap = new LongObjectMap<>();
+        fechados = new LongObjectMap<>();
+        SearchListener l = listener;
+        if (l != null) l.searchStarted();
+        State root = new State(s, null, s.heuristic(objective));
+        abertos.add(root);
+        abertosMap.put(s.key(), root);
 
         while (!abertos.isEmpty()) {
             actual = abertos.poll();
-            abertosSet.remove(actual.layout);
+            // Ignora estados substituídos entretanto por um caminho melhor para o mesmo layout
+            long actualKey = actual.layout.key();
+            if (abertosMap.get(actualKey) != actual) continue;
+            abertosMap.remove(actualKey);
 
             if (actual.layout.isGoal(objective)) {
+                bestF = Math.max(bestF, actual.getF());
+                if (l != null) l.searchFinished(actual);
                 List<State> solutionPath = new ArrayList<>();
                 State current = actual;
                 while (current != null) {
@@ -145,22 +445,338 @@ class BestFirst {
                     current = current.father;
                 }
                 Collections.reverse(solutionPath);
-                return solutionPath.iterator();
+                return result(SearchResult.Status.SOLVED, solutionPath);
             }
 
-            if (!fechados.containsKey(actual.layout)) {
-                fechados.put(actual.layout, actual);
-                List<State> sucs = sucessores(actual);
-                for (State succ : sucs) {
-                    if (!fechados.containsKey(succ.layout) && !abertosSet.contains(succ.layout)) {
-                        abertosSet.add(succ.layout);
-                        abertos.add(succ);
-                    }
+            SearchResult.Status stop = limitReached(actual);
+            if (stop != null) {
+                if (l != null) l.searchFinished(null);
+                return result(stop, null);
+            }
+            if (l != null) l.stateExpanded(actual, abertosMap.size(), fechados.size());
+            fechados.put(actualKey, actual);
+            expandir(actual);
+        }
+
+        if (l != null) l.searchFinished(null);
+        return result(SearchResult.Status.NO_SOLUTION, null);
+    }
+
+    /**
+     * Ciclo principal da procura com os estados fechados fora do heap. Os estados abertos não
+     * referenciam o pai, pelo que um estado deixa de ocupar o heap assim que é expandido; o caminho da solução
+     * é reconstruído seguindo as chaves dos pais nos fechados e voltando a aplicar os movimentos desde a raiz.
+     *
+     * @param s O layout inicial.
+     * @param goal O layout objetivo.
+     * @return O resultado da procura.
+     */
+    private SearchResult searchCompact(Ilayout s, Ilayout goal) {
+        objective = goal;
+
+        abertos = integerCosts ? new BucketOpenList() : new HeapOpenList();
+        abertosMap = new LongObjectMap<>();
+        fechadosCompactos = new OffHeapClosedSet();
+        SearchListener l = listener;
+        if (l != null) l.searchStarted();
+        State root = new CompactState(s, 0.0, s.heuristic(objective), 0, CompactState.ROOT);
+        abertos.add(root);
+        abertosMap.put(s.key(), root);
+
+        while (!abertos.isEmpty()) {
+            CompactState n = (CompactState) abertos.poll();
+            long actualKey = n.getLayout().key();
+            if (abertosMap.get(actualKey) != n) continue;
+            abertosMap.remove(actualKey);
+
+            if (n.getLayout().isGoal(objective)) {
+                bestF = Math.max(bestF, n.getF());
+                List<State> solutionPath = compactPath(s, n);
+                if (l != null) l.searchFinished(solutionPath.get(solutionPath.size() - 1));
+                return result(SearchResult.Status.SOLVED, solutionPath);
+            }
+
+            SearchResult.Status stop = limitReached(n);
+            if (stop != null) {
+                if (l != null) l.searchFinished(null);
+                return result(stop, null);
+            }
+
+            if (l != null) {
+                l.stateExpanded(n, abertosMap.size(), (int) Math.min(Integer.MAX_VALUE, fechadosCompactos.size()));
+            }
+            fechadosCompactos.put(actualKey, n.fatherKey, n.move, n.getG());
+            long t0 = l == null ? 0 : System.nanoTime();
+            heuristicNanos = 0;
+            n.getLayout().forEachMove((move, key, cost) -> {
+                if (n.move != CompactState.ROOT && key == n.fatherKey) return;
+                double g = n.getG() + cost;
+                // Um estado reaberto continua nos fechados com o custo antigo, que é maior do que o dos abertos
+                State known = abertosMap.get(key);
+                if (g >= (known != null ? known.g : fechadosCompactos.g(key))) {
+                    if (l != null) l.duplicateDetected(key, g);
+                    return;
+                }
+
+                Ilayout e = n.getLayout().applyMove(move);
+                State child = new CompactState(e, g, heuristic(e, n.getH(), l), actualKey, move);
+                if (l != null) l.stateGenerated(child);
+                generated++;
+                abertosMap.put(key, child);
+                abertos.add(child);
+            });
+            if (l != null) reportTimes(l, t0);
+        }
+
+        if (l != null) l.searchFinished(null);
+        return result(SearchResult.Status.NO_SOLUTION, null);
+    }
+
+    /**
+     * Reconstrói o caminho até um estado objetivo da procura com fechados compactos: segue as chaves dos pais
+     * até à raiz, recolhendo os movimentos, e aplica-os de novo a partir do layout inicial.
+     *
+     * @param s O layout inicial.
+     * @param n O estado objetivo.
+     * @return A sequência de estados desde o layout inicial.
+     * @throws IllegalStateException Se os pais registados não levarem à raiz.
+     */
+    private List<State> compactPath(Ilayout s, CompactState n) {
+        List<Integer> moves = new ArrayList<>();
+        int move = n.move;
+        long key = n.fatherKey;
+        while (move != CompactState.ROOT) {
+            if (moves.size() > fechadosCompactos.size()) throw new IllegalStateException("Ciclo nos pais dos fechados");
+            moves.add(move);
+            move = fechadosCompactos.move(key);
+            key = fechadosCompactos.parent(key);
+        }
+        Collections.reverse(moves);
+
+        List<State> solutionPath = new ArrayList<>(moves.size() + 1);
+        State current = new State(s, null, s.heuristic(objective));
+        solutionPath.add(current);
+        for (int m : moves) {
+            Ilayout e = current.layout.applyMove(m);
+            current = new State(e, current, e.heuristic(objective, current.h));
+            solutionPath.add(current);
+        }
+        return solutionPath;
+    }
+
+    /**
+     * Resolve o problema com uma procura bidirecional MM (meet in the middle), que avança ao mesmo tempo
+     * a partir do layout inicial e, através dos predecessores, a partir do layout objetivo.
+     * Cada fronteira ordena os seus estados por max(g + h, 2g), com h estimado em direção à origem da outra
+     * fronteira. A procura termina quando o melhor encontro conhecido não é maior do que a menor prioridade,
+     * o menor f de qualquer das fronteiras ou a soma dos menores g das duas, o que garante que o custo
+     * encontrado é ótimo para heurísticas admissíveis.
+     * A redução de ordem parcial (Ilayout.withCommutativePruning()) é desligada nas duas fronteiras, porque
+     * os movimentos que poda dependem do sentido em que os caminhos são construídos.
+     *
+     * @param s O layout inicial.
+     * @param goal O layout objetivo.
+     * @return Um iterador sobre a sequência de estados que leva à solução, ou null se não houver solução.
+     * @see https://doi.org/10.1609/aaai.v30i1.10436
+     */
+    public Iterator<State> solveBidirectional(Ilayout s, Ilayout goal) {
+        objective = goal;
+        if (s.isGoal(goal)) {
+            return Collections.singletonList(new State(s, null)).iterator();
+        }
+
+        s = s.withCommutativePruning(false);
+        Frontier forward = new Frontier(s, goal);
+        Frontier backward = new Frontier(s.prepareGoal(goal).withCommutativePruning(false), s);
+        double best = Double.POSITIVE_INFINITY;
+        State meetForward = null;
+        State meetBackward = null;
+
+        while (!forward.isEmpty() && !backward.isEmpty()) {
+            double minForward = forward.minPriority();
+            double minBackward = backward.minPriority();
+            double lowerBound = Math.max(Math.min(minForward, minBackward),
+                    Math.max(Math.max(forward.minF(), backward.minF()), forward.minG() + backward.minG()));
+            if (best <= lowerBound) break;
+
+            boolean isForward = minForward <= minBackward;
+            Frontier dir = isForward ? forward : backward;
+            Frontier other = isForward ? backward : forward;
+            State n = dir.poll();
+
+            List<Ilayout> next = isForward ? n.layout.children() : n.layout.predecessors();
+            for (Ilayout e : next) {
+                if (n.father != null && e.equals(n.father.layout)) continue;
+                State child = new State(e, n);
+                if (!dir.offer(child)) continue;
+
+                State match = other.best(e);
+                if (match != null && child.g + match.g < best) {
+                    best = child.g + match.g;
+                    meetForward = isForward ? child : match;
+                    meetBackward = isForward ? match : child;
                 }
             }
         }
 
-        return null;
+        if (meetForward == null) return null;
+        return joinPaths(meetForward, meetBackward);
+    }
+
+    /**
+     * Junta o caminho da fronteira direta com o da fronteira inversa no estado de encontro.
+     * Os estados da fronteira inversa não são regenerados como filhos do estado anterior, porque children()
+     * pode podar o movimento necessário (por exemplo, voltar a mover o contentor que o estado anterior moveu).
+     * Pelo contrato de predecessors(), o getK() de cada estado inverso já é o custo do movimento, no sentido
+     * direto, que o leva ao estado seguinte, pelo que basta acumular esses custos.
+     *
+     * @param meetForward Estado de encontro na fronteira direta.
+     * @param meetBackward Estado de encontro na fronteira inversa (mesmo layout).
+     * @return Um iterador sobre a sequência de estados desde o layout inicial até ao objetivo.
+     */
+    private Iterator<State> joinPaths(State meetForward, State meetBackward) {
+        List<State> solutionPath = new ArrayList<>();
+        for (State current = meetForward; current != null; current = current.father) {
+            solutionPath.add(current);
+        }
+        Collections.reverse(solutionPath);
+
+        State current = meetForward;
+        State previous = meetBackward;
+        for (State back = meetBackward.father; back != null; back = back.father) {
+            State next = new State(back.layout, current.g + previous.layout.getK(), 0.0);
+            next.father = current;
+            solutionPath.add(next);
+            current = next;
+            previous = back;
+        }
+        return solutionPath.iterator();
+    }
+
+    /**
+     * Fronteira de uma das direções da procura bidirecional: abertos ordenados pela prioridade MM, por f e
+     * por g (estes dois apenas para o critério de paragem), com o melhor estado conhecido de cada layout
+     * aberto e fechado.
+     */
+    private static final class Frontier {
+        private final Ilayout target;
+        private final PriorityQueue<Entry> queue;
+        private final PriorityQueue<Entry> byF;
+        private final PriorityQueue<Entry> byG;
+        private final Map<Ilayout, State> open;
+        private final Map<Ilayout, State> closed;
+
+        /**
+         * Entrada das filas de abertos com f e a prioridade calculados uma única vez.
+         */
+        private static final class Entry {
+            private final State state;
+            private final double f;
+            private final double priority;
+
+            private Entry(State state, double f) {
+                this.state = state;
+                this.f = f;
+                this.priority = Math.max(f, 2 * state.g);
+            }
+        }
+
+        /**
+         * Cria uma fronteira que parte de um layout e se dirige a outro.
+         *
+         * @param root O layout de partida desta fronteira.
+         * @param target O layout para onde a heurística estima a distância.
+         */
+        Frontier(Ilayout root, Ilayout target) {
+            this.target = target;
+            this.queue = new PriorityQueue<>((e1, e2) -> {
+                int c = Double.compare(e1.priority, e2.priority);
+                return c != 0 ? c : Double.compare(e1.state.g, e2.state.g);
+            });
+            this.byF = new PriorityQueue<>((e1, e2) -> Double.compare(e1.f, e2.f));
+            this.byG = new PriorityQueue<>((e1, e2) -> Double.compare(e1.state.g, e2.state.g));
+            this.open = new HashMap<>();
+            this.closed = new HashMap<>();
+            offer(new State(root, null));
+        }
+
+        /**
+         * Adiciona um estado à fronteira se for o melhor caminho conhecido para o seu layout.
+         * Um layout já fechado volta a ser aberto quando é alcançado com menor custo.
+         *
+         * @param st O estado a adicionar.
+         * @return true se o estado foi adicionado; false se já existia um caminho tão bom ou melhor.
+         */
+        boolean offer(State st) {
+            State known = open.get(st.layout);
+            if (known == null) known = closed.get(st.layout);
+            if (known != null && known.g <= st.g) return false;
+
+            closed.remove(st.layout);
+            open.put(st.layout, st);
+            Entry entry = new Entry(st, st.g + st.layout.heuristic(target));
+            queue.add(entry);
+            byF.add(entry);
+            byG.add(entry);
+            return true;
+        }
+
+        /**
+         * Retira do topo de uma fila as entradas de estados que já foram expandidos ou substituídos por
+         * caminhos melhores, e retorna a primeira entrada válida.
+         *
+         * @param q A fila a limpar.
+         * @return A entrada válida no topo da fila, ou null se a fila ficar vazia.
+         */
+        private Entry top(PriorityQueue<Entry> q) {
+            while (!q.isEmpty() && open.get(q.peek().state.layout) != q.peek().state) {
+                q.poll();
+            }
+            return q.peek();
+        }
+
+        boolean isEmpty() {
+            return top(queue) == null;
+        }
+
+        double minPriority() {
+            Entry e = top(queue);
+            return e == null ? Double.POSITIVE_INFINITY : e.priority;
+        }
+
+        double minF() {
+            Entry e = top(byF);
+            return e == null ? Double.POSITIVE_INFINITY : e.f;
+        }
+
+        double minG() {
+            Entry e = top(byG);
+            return e == null ? Double.POSITIVE_INFINITY : e.state.g;
+        }
+
+        /**
+         * Remove o estado de menor prioridade e passa-o para os fechados.
+         *
+         * @return O estado removido.
+         */
+        State poll() {
+            State st = top(queue).state;
+            queue.poll();
+            open.remove(st.layout);
+            closed.put(st.layout, st);
+            return st;
+        }
+
+        /**
+         * Retorna o melhor estado conhecido desta fronteira para um layout.
+         *
+         * @param l O layout a procurar.
+         * @return O estado aberto ou fechado com esse layout, ou null se nunca foi gerado.
+         */
+        State best(Ilayout l) {
+            State st = open.get(l);
+            return st != null ? st : closed.get(l);
+        }
     }
 
 }
\ No newline at end of file
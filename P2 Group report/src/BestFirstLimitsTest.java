@@ -0,0 +1,75 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Testes da procura Best-First com limites: cada motivo de paragem é verificado com os estados fechados
+ * no heap e fora dele.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ */
+class BestFirstLimitsTest {
+    private static final Container START = new Container("C4A2 E1B3 D2F5 H1G3");
+    private static final Container GOAL = new Container("ABCDEFGH");
+
+    @Test
+    void testSemLimites() {
+        double expected = TestInstances.cost(new BestFirst().solve(START, GOAL), GOAL);
+        for (boolean compact : new boolean[]{false, true}) {
+            List<Long> calls = new ArrayList<>();
+            SearchResult result = new BestFirst(true, compact).solve(START, GOAL, null, Long.MAX_VALUE,
+                    (bestF, expanded) -> calls.add(expanded), Duration.ofNanos(1));
+            assertEquals(SearchResult.Status.SOLVED, result.getStatus());
+            assertEquals(expected, TestInstances.cost(result.getPath().iterator(), GOAL));
+            assertFalse(calls.isEmpty(), "O progresso não foi comunicado");
+        }
+    }
+
+    @Test
+    void testTempoLimite() {
+        for (boolean compact : new boolean[]{false, true}) {
+            SearchResult result = new BestFirst(true, compact).solve(START, GOAL, Duration.ZERO, Long.MAX_VALUE);
+            assertEquals(SearchResult.Status.TIMED_OUT, result.getStatus());
+            assertNull(result.getPath());
+            assertEquals(0, result.getExpanded());
+        }
+    }
+
+    @Test
+    void testLimiteDeEstados() {
+        for (boolean compact : new boolean[]{false, true}) {
+            SearchResult result = new BestFirst(true, compact).solve(START, GOAL, null, 5);
+            assertEquals(SearchResult.Status.NODE_LIMIT, result.getStatus());
+            assertEquals(5, result.getExpanded());
+            assertTrue(result.getBestF() <= TestInstances.cost(new BestFirst().solve(START, GOAL), GOAL));
+        }
+    }
+
+    @Test
+    void testInterrupcao() {
+        for (boolean compact : new boolean[]{false, true}) {
+            Thread.currentThread().interrupt();
+            SearchResult result = new BestFirst(true, compact).solve(START, GOAL, null, Long.MAX_VALUE);
+            // Thread.interrupted() também limpa o estado para os testes seguintes
+            assertTrue(Thread.interrupted(), "A thread deixou de estar interrompida");
+            assertEquals(SearchResult.Status.INTERRUPTED, result.getStatus());
+            assertNull(result.getPath());
+        }
+    }
+
+    @Test
+    void testInterrupcaoSemLimites() {
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> new BestFirst().solve(START, GOAL));
+            assertTrue(Thread.currentThread().isInterrupted(), "A thread deixou de estar interrompida");
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
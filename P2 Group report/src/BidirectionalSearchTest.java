@@ -0,0 +1,35 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+
+/**
+ * Testes da procura bidirecional do BestFirst: em instâncias aleatórias, com e sem custos por contentor,
+ * o caminho que junta as duas fronteiras tem de ser válido e ter o mesmo custo ótimo da procura para a frente.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ */
+class BidirectionalSearchTest {
+
+    @Test
+    void testCustoIgualAoBestFirst() {
+        Random random = new Random(3);
+        for (int instance = 0; instance < 80; instance++) {
+            int containers = 2 + random.nextInt(7);
+            Container start = new Container(TestInstances.randomConfig(random, containers, instance % 2 == 0));
+            Container goal = new Container(TestInstances.randomConfig(random, containers, false));
+            double expected = TestInstances.cost(new BestFirst().solve(start, goal), goal);
+            assertEquals(expected, TestInstances.cost(new BestFirst().solveBidirectional(start, goal), goal),
+                    start.canonical() + " -> " + goal.canonical());
+        }
+    }
+
+    @Test
+    void testInicioIgualAoObjetivo() {
+        Container start = new Container("A3B1 C2");
+        Iterator<BestFirst.State> it = new BestFirst().solveBidirectional(start, new Container("AB C"));
+        assertEquals(0.0, TestInstances.cost(it, new Container("AB C")));
+    }
+}
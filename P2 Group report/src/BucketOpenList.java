@@ -0,0 +1,92 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lista de abertos em baldes (bucket queue) para procuras com custos e heurística inteiros.
+ * Os estados são guardados num balde por valor de f e, dentro deste, num balde por valor de g,
+ * pelo que inserir e remover custam O(1) amortizado em vez de O(log n).
+ * Como f raramente diminui ao longo da procura, o índice do menor balde não vazio só avança,
+ * exceto quando é inserido um estado com f menor.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ * @inv Não há estados abertos com f menor do que minF, e dentro de cada balde de f não há estados
+ *      com g maior do que o maxG desse balde.
+ */
+class BucketOpenList implements OpenList {
+    private final List<FBucket> buckets = new ArrayList<>();
+    private int minF;
+    private int size;
+
+    /**
+     * Balde com os estados de um mesmo f, separados por g.
+     */
+    private static final class FBucket {
+        private final List<ArrayDeque<BestFirst.State>> byG = new ArrayList<>();
+        private int maxG = -1;
+        private int size;
+    }
+
+    /**
+     * Adiciona um estado ao balde correspondente ao seu f e g.
+     *
+     * @param state O estado a adicionar.
+     * @throws IllegalArgumentException Se f ou g não forem inteiros não negativos.
+     */
+    @Override
+    public void add(BestFirst.State state) {
+        int f = toIndex(state.getF());
+        int g = toIndex(state.getG());
+
+        while (buckets.size() <= f) buckets.add(new FBucket());
+        FBucket bucket = buckets.get(f);
+        while (bucket.byG.size() <= g) bucket.byG.add(new ArrayDeque<>());
+        bucket.byG.get(g).addLast(state);
+        bucket.maxG = Math.max(bucket.maxG, g);
+        bucket.size++;
+
+        if (size == 0 || f < minF) minF = f;
+        size++;
+    }
+
+    @Override
+    public BestFirst.State poll() {
+        if (size == 0) return null;
+        while (buckets.get(minF).size == 0) minF++;
+
+        FBucket bucket = buckets.get(minF);
+        while (bucket.byG.get(bucket.maxG).isEmpty()) bucket.maxG--;
+        BestFirst.State state = bucket.byG.get(bucket.maxG).pollFirst();
+        bucket.size--;
+        size--;
+        return state;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Converte um custo no índice do balde, verificando que é inteiro.
+     *
+     * @param value O custo a converter.
+     * @return O índice do balde.
+     * @throws IllegalArgumentException Se o custo não for um inteiro não negativo.
+     */
+    private static int toIndex(double value) {
+        int index = (int) value;
+        if (index != value || index < 0) {
+            throw new IllegalArgumentException("Custo não inteiro na lista de baldes: " + value);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,43 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+
+/**
+ * Testes da redução de ordem parcial do Container: podar as ordens repetidas de movimentos independentes
+ * não pode mudar o custo ótimo, e a opção só vale para a procura que começa no contêiner que a tem ligada.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ */
+class CommutativePruningTest {
+
+    @Test
+    void testCustoOtimoComPoda() {
+        Random random = new Random(23);
+        for (int instance = 0; instance < 60; instance++) {
+            int containers = 4 + random.nextInt(4);
+            Container start = new Container(TestInstances.randomConfig(random, containers, true));
+            Container goal = new Container(TestInstances.randomConfig(random, containers, false));
+            Container plain = start.withCommutativePruning(false);
+            Container pruned = start.withCommutativePruning(true);
+            double expected = TestInstances.cost(new BestFirst().solve(plain, goal), goal);
+            assertEquals(expected, TestInstances.cost(new BestFirst().solve(pruned, goal), goal), start.canonical());
+            assertEquals(expected, TestInstances.cost(new BestFirst().solveBidirectional(pruned, goal), goal),
+                    start.canonical() + " bidirecional");
+        }
+    }
+
+    @Test
+    void testOpcaoPorProcura() {
+        // Depois de mover D para cima de C, mover A ou B não partilha pilhas com esse movimento
+        Container start = new Container("A1 B1 C1 D1");
+        Container pruned = (Container) start.withCommutativePruning(true).applyMove(3 * 4 + 2);
+        Container plain = (Container) start.applyMove(3 * 4 + 2);
+        assertEquals(plain, pruned);
+        assertTrue(pruned.children().size() < plain.children().size());
+        // A cópia com a poda ligada não altera os sucessores da procura que começa no original
+        assertEquals(4, plain.children().size());
+    }
+}
@@ -4,20 +4,81 @@ import java.util.*;
  * Classe que representa um contêiner que armazena pilhas de caracteres e suas informações.
  * Implementa a interface Ilayout e permite a clonagem dos objetos.
  * É usada para manipular estados de configuração e calcular heurísticas e custos de transição.
+ * As pilhas de um estado nunca mudam depois de ele ser criado: os contentores de todas as pilhas ficam,
+ * da base para o topo, num único array de bytes, com as pilhas ordenadas pelo contentor da base, e os
+ * índices onde cada pilha começa num segundo array. Assim, dois estados iguais têm sempre os mesmos arrays, e a igualdade e o hash
+ * não precisam de construir strings.
+ * Cada estado tem também uma chave de Zobrist de 64 bits: o XOR de um valor pseudo-aleatório por cada
+ * (contentor, base da pilha, altura), que é atualizada em O(1) a cada movimento.
+ * Os sucessores não incluem os movimentos que nunca fazem parte de uma solução ótima: pousar no chão o único
+ * contentor de uma pilha, que não muda o estado, e voltar a mover o contentor que acabou de ser movido, que
+ * custa o mesmo que levá-lo diretamente ao destino final a partir do pai. Opcionalmente, os movimentos em
+ * pilhas diferentes, que podem ser feitos por qualquer ordem, só são gerados por ordem crescente do contentor.
+ * Esta opção pertence a cada procura: é ligada no estado inicial com withCommutativePruning() e passa
+ * para todos os estados gerados a partir dele.
+ * Cada estado guarda ainda, em cache, a parcela dos contentores movidos duas vezes calculada pela última
+ * chamada a heuristic() e o objetivo a que ela se refere, e move() copia esses dois valores para o filho.
+ * Por isso os estados não são seguros para threads: a heurística de um mesmo estado não pode ser calculada
+ * por duas threads ao mesmo tempo. O cálculo incremental, heuristic(goal, parentHeuristic), depende da
+ * ordem das chamadas: a heurística do pai tem de ter sido calculada para o mesmo objetivo antes de o filho
+ * ser criado, e parentHeuristic tem de ser o valor dessa chamada. Se o filho foi criado antes, ou se a
+ * última heurística do pai foi calculada para outro objetivo, o filho calcula a heurística de raiz.
  *
  * @author Andreia Qiu 79856
  * @author Eduarda Pereira 79749
  * @author Guilherme Carmo 79860
  * @version 1.0 2024-10-28
- * @inv O estado do contêiner é mantido em uma lista de pilhas, onde cada pilha representa
- *      uma pilha de caracteres, e a informação de cada contêiner é armazenada em um HashMap
- *      para associar caracteres ao seu custo.
+ * @inv ids contém os contentores de cada pilha, da base para o topo, e a pilha k ocupa as posições
+ *      [bounds[k], bounds[k + 1]); não há pilhas vazias e as pilhas estão ordenadas pela base.
+ *      O custo de cada contentor é guardado numa tabela indexada pelo carácter, partilhada por todos
+ *      os estados do mesmo problema.
  */
 public class Container implements Ilayout, Cloneable {
 
-    private List<Stack<Character>> containers;
-    private HashMap<Character, Integer> containerInfo;
+    private static final int MAX_ID = 128;
+    private static final byte NONE = 0;
+    private static final byte ABSENT = -1;
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final byte[] ids;
+    private final byte[] bounds;
+    private final int[] costs;
+    private final long key;
+    private boolean commutativePruning; // Indica se os movimentos independentes só são gerados por uma ordem
     private int cost;
+    private byte movedId;
+    private byte sourceStack;
+    private byte targetStack;
+    private byte[] goalBelow;
+    private Ilayout deadlockGoal; // Objetivo em relação ao qual deadlock foi calculado, ou null
+    private int deadlock;
+    private Ilayout parentDeadlockGoal; // Objetivo e valor de deadlock do pai, para o cálculo incremental
+    private int parentDeadlock;
+
+    /**
+     * Arrays de trabalho de deadlockHeuristic(), reutilizados por todos os estados calculados na mesma
+     * thread para que o cálculo de cada filho não crie arrays novos.
+     */
+    private static final class Scratch {
+        private final byte[] position = new byte[MAX_ID];
+        private byte[] stackEnd = new byte[0];
+        private byte[] mark = new byte[0];
+        private int[] next = new int[0];
+        private int[] path = new int[0];
+
+        /**
+         * Garante que os arrays indexados pela posição dos contentores têm pelo menos n elementos.
+         *
+         * @param n O número de contentores.
+         */
+        private void ensure(int n) {
+            if (mark.length >= n) return;
+            stackEnd = new byte[n];
+            mark = new byte[n];
+            next = new int[n];
+            path = new int[n];
+        }
+    }
 
     /**
      * Construtor que cria um contêiner a partir de uma configuração dada.
@@ -26,41 +87,91 @@ public class Container implements Ilayout, Cloneable {
      * @throws IllegalStateException Se a configuração não for válida.
      */
     public Container(String config) throws IllegalStateException {
-        containers = new ArrayList<>();
-        containerInfo = new HashMap<>();
+        costs = new int[MAX_ID];
         this.cost = 0;
 
+        List<String> stacks = new ArrayList<>();
         String[] str = config.split(" ");
         for (String s : str) {
-            Stack<Character> stack = new Stack<>();
+            StringBuilder stack = new StringBuilder();
             for (int i = 0; i < s.length(); i++) {
                 char c = s.charAt(i);
-                if (!Character.isLetter(c) && !Character.isDigit(c)) {
+                if ((!Character.isLetter(c) && !Character.isDigit(c)) || c >= MAX_ID) {
                     throw new IllegalArgumentException("Entrada inválida: " + c);
                 }
 
                 if (i + 1 < s.length() && Character.isDigit(s.charAt(i + 1))) {
-                    containerInfo.put(c, Character.getNumericValue(s.charAt(i + 1)));
+                    costs[c] = Character.getNumericValue(s.charAt(i + 1));
                     i++;
                 } else {
-                    containerInfo.put(c, 1);
+                    costs[c] = 1;
                 }
-                stack.push(c);
+                stack.append(c);
             }
-            containers.add(stack);
+            if (stack.length() > 0) stacks.add(stack.toString());
+        }
+
+        // Ordena as pilhas pela base uma única vez
+        stacks.sort(Comparator.comparing(stack -> stack.charAt(0)));
+        ids = new byte[stacks.stream().mapToInt(String::length).sum()];
+        bounds = new byte[stacks.size() + 1];
+        int n = 0;
+        for (int k = 0; k < stacks.size(); k++) {
+            bounds[k] = (byte) n;
+            for (char c : stacks.get(k).toCharArray()) ids[n++] = (byte) c;
         }
+        bounds[stacks.size()] = (byte) n;
+        key = keyOf(ids, bounds);
     }
 
     /**
-     * Construtor que cria um contêiner a partir de uma lista de pilhas e informações do contêiner.
+     * Construtor que cria um contêiner a partir da representação canónica, partilhando os arrays dados.
      *
-     * @param containers A lista de pilhas que representam os contêineres.
-     * @param containerInfo Um mapa que contém a informação dos contêineres.
+     * @param ids Os contentores de todas as pilhas, da base para o topo.
+     * @param bounds O início de cada pilha em ids, seguido do tamanho de ids.
+     * @param costs A tabela de custos dos contentores.
+     * @param key A chave de Zobrist do estado.
      */
-    public Container(List<Stack<Character>> containers, HashMap<Character, Integer> containerInfo) {
-        this.containers = containers;
-        this.containerInfo = new HashMap<>(containerInfo);
+    private Container(byte[] ids, byte[] bounds, int[] costs, long key) {
+        this.ids = ids;
+        this.bounds = bounds;
+        this.costs = costs;
         this.cost = 0;
+        this.key = key;
+    }
+
+    /**
+     * Calcula de raiz a chave de Zobrist de um estado.
+     *
+     * @param ids Os contentores de todas as pilhas, da base para o topo.
+     * @param bounds O início de cada pilha em ids, seguido do tamanho de ids.
+     * @return A chave do estado.
+     */
+    private static long keyOf(byte[] ids, byte[] bounds) {
+        long z = 0;
+        for (int k = 0; k < bounds.length - 1; k++) {
+            for (int i = bounds[k]; i < bounds[k + 1]; i++) {
+                z ^= zobrist(ids[i], ids[bounds[k]], i - bounds[k]);
+            }
+        }
+        return z;
+    }
+
+    /**
+     * Retorna o valor de Zobrist de um contentor a uma dada altura de uma pilha com uma dada base.
+     * Os valores são obtidos misturando os bits dos três índices (SplitMix64), pelo que são os mesmos
+     * para todos os estados sem ser necessário guardar uma tabela.
+     *
+     * @param id O contentor.
+     * @param bottom O contentor da base da pilha.
+     * @param height A altura do contentor na pilha (0 para a base).
+     * @return O valor pseudo-aleatório de 64 bits associado.
+     */
+    private static long zobrist(byte id, byte bottom, int height) {
+        long z = ((long) id << 16 | (long) bottom << 8 | height) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
     }
 
     /**
@@ -70,104 +181,260 @@ public class Container implements Ilayout, Cloneable {
      */
     @Override
     public List<Ilayout> children() {
-        List<Ilayout> children = new ArrayList<>();
-
-        for (int i = 0; i < containers.size(); i++) {
-            Stack<Character> start = containers.get(i);
-
-            if (!start.isEmpty()) {
-                char c = start.peek();
-                int containerCost = containerInfo.get(c);
-
-                List<Stack<Character>> copy = deepCopy(i, -1);
-                copy.get(i).pop();
-                if (copy.get(i).isEmpty()) {
-                    copy.remove(i);
+        int stacks = stackCount();
+        List<Ilayout> children = new ArrayList<>(stacks * stacks);
+
+        for (int i = 0; i < stacks; i++) {
+            if (!pruned(i, -1)) children.add(move(i, -1));
+            for (int j = 0; j < stacks; j++) {
+                if (i != j && !pruned(i, j)) {
+                    children.add(move(i, j));
                 }
+            }
+        }
+        return children;
+    }
 
-                Stack<Character> groundStack = new Stack<>();
-                groundStack.push(c);
-                copy.add(groundStack);
-
-                Container display = new Container(copy, containerInfo);
-                display.cost = containerCost;
-                children.add(display);
+    /**
+     * Percorre os movimentos possíveis, pela mesma ordem de children(), calculando a chave de cada filho
+     * a partir da deste contêiner, sem copiar as pilhas.
+     * O movimento da pilha i para a pilha j é identificado por i * n + j, com n o número de pilhas,
+     * e o movimento da pilha i para o chão por i * n + i.
+     *
+     * @param visitor O visitante que recebe cada movimento.
+     */
+    @Override
+    public void forEachMove(MoveVisitor visitor) {
+        int stacks = stackCount();
+        for (int i = 0; i < stacks; i++) {
+            double k = costs[ids[bounds[i + 1] - 1]];
+            if (!pruned(i, -1)) visitor.visit(i * stacks + i, childKey(i, -1), k);
+            for (int j = 0; j < stacks; j++) {
+                if (i != j && !pruned(i, j)) {
+                    visitor.visit(i * stacks + j, childKey(i, j), k);
+                }
+            }
+        }
+    }
 
-                for (int j = 0; j < containers.size(); j++) {
-                    if (i != j) {
-                        List<Stack<Character>> copy2 = deepCopy(i, j);
+    /**
+     * Retorna uma cópia do contêiner com a redução de ordem parcial ligada ou desligada: quando dois
+     * movimentos seguidos não partilham pilhas, o resultado é o mesmo por qualquer ordem, e só é gerada a
+     * ordem em que o segundo contentor movido é maior do que o primeiro. Reduz muito o número de sucessores
+     * nas instâncias com muitas pilhas. A opção passa para os filhos, pelo que vale para toda a procura que
+     * começa na cópia, e não altera a igualdade nem a chave dos estados.
+     *
+     * @param enabled true para gerar cada sequência de movimentos independentes por uma única ordem.
+     * @return A cópia do contêiner, sem movimento de origem.
+     */
+    @Override
+    public Container withCommutativePruning(boolean enabled) {
+        Container copy = clone();
+        copy.commutativePruning = enabled;
+        return copy;
+    }
 
-                        if (!copy2.get(i).isEmpty()) {
-                            copy2.get(i).pop();
-                            copy2.get(j).push(c);
-                        }
+    /**
+     * Verifica se um movimento pode ser ignorado antes de o contêiner filho ser criado.
+     *
+     * @param source O índice da pilha de origem.
+     * @param target O índice da pilha de destino, ou -1 para pousar o contentor no chão.
+     * @return true se o movimento não mudar o estado, voltar a mover o contentor movido pelo pai ou,
+     *         com a redução de ordem parcial ligada, trocar a ordem de dois movimentos independentes.
+     */
+    private boolean pruned(int source, int target) {
+        byte c = ids[bounds[source + 1] - 1];
+        if (target < 0 && bounds[source + 1] - bounds[source] == 1) return true;
+        if (movedId == NONE) return false;
+        if (c == movedId) return true;
+        // Se a pilha de origem do pai desapareceu, sourceStack é -1 e o movimento ao chão não é considerado independente
+        return commutativePruning && c < movedId && source != sourceStack && source != targetStack
+                && target != sourceStack && target != targetStack;
+    }
 
-                        if (copy2.get(i).isEmpty()) {
-                            copy2.remove(i);
-                        }
+    /**
+     * Cria o contêiner que resulta de um movimento visitado por forEachMove().
+     *
+     * @param move O identificador do movimento.
+     * @return O contêiner filho.
+     */
+    @Override
+    public Ilayout applyMove(int move) {
+        int stacks = stackCount();
+        int source = move / stacks;
+        int target = move % stacks;
+        return move(source, target == source ? -1 : target);
+    }
 
-                        Container display2 = new Container(copy2, containerInfo);
-                        display2.cost = containerCost;
-                        children.add(display2);
-                    }
-                }
+    /**
+     * Cria o contêiner que resulta de mover o contentor do topo de uma pilha para outra pilha ou para o chão,
+     * copiando as restantes pilhas por blocos e mantendo a ordem pela base.
+     *
+     * @param source O índice da pilha de origem.
+     * @param target O índice da pilha de destino, ou -1 para pousar o contentor no chão.
+     * @return O contêiner filho, com o custo do contentor movido.
+     */
+    private Container move(int source, int target) {
+        int stacks = stackCount();
+        byte c = ids[bounds[source + 1] - 1];
+
+        byte[] newIds = new byte[ids.length];
+        byte[] newBounds = new byte[stacks + 2];
+        int n = 0;
+        int k = 0;
+        int newSource = -1;
+        int newTarget = -1;
+        boolean placed = target >= 0;
+        for (int s = 0; s < stacks; s++) {
+            int from = bounds[s];
+            int to = bounds[s + 1];
+            if (s == source) to--;
+            if (!placed && c < ids[from]) {
+                newTarget = k;
+                newBounds[k++] = (byte) n;
+                newIds[n++] = c;
+                placed = true;
             }
+            if (from == to) continue;
+            if (s == source) newSource = k;
+            if (s == target) newTarget = k;
+            newBounds[k++] = (byte) n;
+            System.arraycopy(ids, from, newIds, n, to - from);
+            n += to - from;
+            if (s == target) newIds[n++] = c;
         }
-        return children;
+        if (!placed) {
+            newTarget = k;
+            newBounds[k++] = (byte) n;
+            newIds[n++] = c;
+        }
+        newBounds[k] = (byte) n;
+
+        Container child = new Container(newIds, Arrays.copyOf(newBounds, k + 1), costs, childKey(source, target));
+        child.cost = costs[c];
+        child.commutativePruning = commutativePruning;
+        child.movedId = c;
+        child.sourceStack = (byte) newSource;
+        child.targetStack = (byte) newTarget;
+        child.parentDeadlockGoal = deadlockGoal;
+        child.parentDeadlock = deadlock;
+        return child;
     }
 
     /**
-     * Cria uma cópia profunda dos contêineres a partir de índices fornecidos.
+     * Calcula a chave de Zobrist do contêiner que resulta de um movimento. Só o contentor movido muda
+     * de (base, altura), pelo que basta retirar o seu valor antigo e juntar o novo.
      *
-     * @param sourceIndex O índice da pilha de origem.
-     * @param destIndex   O índice da pilha de destino.
-     * @return Uma lista de pilhas clonadas.
+     * @param source O índice da pilha de origem.
+     * @param target O índice da pilha de destino, ou -1 para pousar o contentor no chão.
+     * @return A chave do contêiner filho.
      */
-    @SuppressWarnings("unchecked")
-    public List<Stack<Character>> deepCopy(int sourceIndex, int destIndex) {
-        List<Stack<Character>> stacks = new ArrayList<>(containers);
+    private long childKey(int source, int target) {
+        byte c = ids[bounds[source + 1] - 1];
+        return key ^ zobrist(c, ids[bounds[source]], bounds[source + 1] - bounds[source] - 1)
+                ^ (target >= 0 ? zobrist(c, ids[bounds[target]], bounds[target + 1] - bounds[target]) : zobrist(c, c, 0));
+    }
 
-        if (sourceIndex >= 0) {
-            stacks.set(sourceIndex, (Stack<Character>) stacks.get(sourceIndex).clone());
-        }
-        if (destIndex >= 0) {
-            stacks.set(destIndex, (Stack<Character>) stacks.get(destIndex).clone());
-        }
-        return stacks;
+    /**
+     * Retorna o número de pilhas não vazias.
+     *
+     * @return O número de pilhas.
+     */
+    private int stackCount() {
+        return bounds.length - 1;
     }
 
     /**
-     * Ordena os contêineres com base no elemento inferior das pilhas.
+     * Retorna uma cópia do contêiner objetivo com os custos deste contêiner, já que a configuração
+     * objetivo normalmente não indica os custos dos contentores.
+     *
+     * @param goal O layout objetivo.
+     * @return O contêiner objetivo com a informação de custos do contêiner inicial.
      */
-    public void sortContainers() {
-        containers.sort((s1, s2) -> {
-            char stackBottom1 = s1.firstElement();
-            char stackBottom2 = s2.firstElement();
-            return Character.compare(stackBottom1, stackBottom2);
-        });
+    @Override
+    public Ilayout prepareGoal(Ilayout goal) {
+        Container goalContainer = (Container) goal;
+        return new Container(goalContainer.ids, goalContainer.bounds, costs, goalContainer.key);
+    }
+
+    /**
+     * Escreve o contêiner como o número de pilhas, o início de cada pilha e os contentores, um byte cada.
+     * Os custos não são escritos, porque são partilhados por todos os estados do problema.
+     *
+     * @return Os bytes que representam o contêiner.
+     */
+    @Override
+    public byte[] pack() {
+        byte[] packed = new byte[1 + bounds.length + ids.length];
+        packed[0] = (byte) bounds.length;
+        System.arraycopy(bounds, 0, packed, 1, bounds.length);
+        System.arraycopy(ids, 0, packed, 1 + bounds.length, ids.length);
+        return packed;
+    }
+
+    /**
+     * Reconstrói um contêiner escrito com pack(), com a tabela de custos deste contêiner.
+     *
+     * @param packed Os bytes do contêiner.
+     * @return O contêiner, sem movimento de origem e com a redução de ordem parcial deste contêiner.
+     */
+    @Override
+    public Ilayout unpack(byte[] packed) {
+        int length = packed[0];
+        byte[] newBounds = Arrays.copyOfRange(packed, 1, 1 + length);
+        byte[] newIds = Arrays.copyOfRange(packed, 1 + length, packed.length);
+        Container unpacked = new Container(newIds, newBounds, costs, keyOf(newIds, newBounds));
+        unpacked.commutativePruning = commutativePruning;
+        return unpacked;
     }
 
     @Override
     public Container clone() {
-        return new Container(containers, containerInfo);
+        Container copy = new Container(ids, bounds, costs, key);
+        copy.commutativePruning = commutativePruning;
+        return copy;
+    }
+
+    /**
+     * Retorna a chave de Zobrist do contêiner, calculada incrementalmente a partir da do pai.
+     *
+     * @return A chave de 64 bits do estado.
+     */
+    @Override
+    public long key() {
+        return key;
     }
 
     @Override
     public int hashCode() {
-        return this.toString().hashCode();
+        return Long.hashCode(key);
     }
 
     @Override
     public boolean equals(Object o) {
-        if (o == null) return false;
         if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
 
         Container display = (Container) o;
-        if (this.containers.size() != display.containers.size()) return false;
-
-        if (this.hashCode() == display.hashCode()) return true;
+        return key == display.key && Arrays.equals(ids, display.ids) && Arrays.equals(bounds, display.bounds);
+    }
 
-        return Objects.equals(containers, display.containers);
+    /**
+     * Retorna a forma canónica do contêiner no formato de entrada: as pilhas ordenadas pela base, separadas
+     * por espaços, com o custo de cada contentor a seguir ao seu carácter. Dois contêineres iguais com os
+     * mesmos custos têm sempre a mesma forma canónica, e new Container(canonical()) é igual a este contêiner.
+     *
+     * @return A forma canónica do contêiner.
+     */
+    public String canonical() {
+        StringBuilder sb = new StringBuilder(ids.length * 2 + stackCount());
+        for (int k = 0; k < stackCount(); k++) {
+            if (k > 0) sb.append(' ');
+            for (int i = bounds[k]; i < bounds[k + 1]; i++) {
+                sb.append((char) ids[i]).append(costs[ids[i]]);
+            }
+        }
+        return sb.toString();
     }
 
     /**
@@ -177,25 +444,21 @@ public class Container implements Ilayout, Cloneable {
      */
     @Override
     public String toString() {
-        sortContainers();
         StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < containers.size(); i++) {
-            Stack<Character> container = containers.get(i);
-            if (!container.isEmpty()) {
-                sb.append("[");
-                for (int j = 0; j < container.size(); j++) {
-                    sb.append(container.get(j));
-                    if (j < container.size() - 1) {
-                        sb.append(", ");
-                    }
-                }
-                sb.append("]");
-                if (i < containers.size() - 1) {
-                    sb.append("\n");
+        for (int k = 0; k < stackCount(); k++) {
+            sb.append("[");
+            for (int i = bounds[k]; i < bounds[k + 1]; i++) {
+                sb.append((char) ids[i]);
+                if (i < bounds[k + 1] - 1) {
+                    sb.append(", ");
                 }
             }
+            sb.append("]");
+            if (k < stackCount() - 1) {
+                sb.append("\n");
+            }
         }
-        return sb.toString().trim();
+        return sb.toString();
     }
 
     /**
@@ -223,60 +486,221 @@ public class Container implements Ilayout, Cloneable {
 
     /**
      * Calcula e retorna o valor heurístico em relação ao layout objetivo.
+     * A heurística é a soma, pilha a pilha, do custo dos contentores que não estão na posição final
+     * e dos que estão por cima deles, mais o custo dos contentores que terão de ser movidos duas vezes
+     * (deadlockHeuristic()).
+     * O objetivo é indexado uma única vez (goalBelow()), pelo que o cálculo é uma única passagem pelos
+     * contentores deste estado, sem procurar a pilha correspondente no objetivo.
      *
      * @param goal O layout objetivo.
      * @return O valor heurístico para o layout atual em relação ao objetivo.
      */
     @Override
     public double heuristic(Ilayout goal) {
-        Container goalContainer = (Container) goal;
-        double heuristicCost = 0;
+        byte[] below = ((Container) goal).goalBelow();
+        int heuristicCost = 0;
 
-        for (Stack<Character> currentStack : containers) {
-            if (currentStack.isEmpty()) continue;
+        for (int k = 0; k < stackCount(); k++) {
+            heuristicCost += stackHeuristic(below, bounds[k], bounds[k + 1], NONE);
+        }
 
-            char baseCurrent = currentStack.firstElement();
-            boolean baseFoundInGoal = false;
+        return heuristicCost + deadlockHeuristic(goal, below);
+    }
 
-            for (Stack<Character> goalStack : goalContainer.containers) {
-                if (goalStack.isEmpty()) continue;
+    /**
+     * Calcula o valor heurístico a partir do valor do contêiner pai, substituindo apenas a contribuição
+     * das duas pilhas alteradas pelo movimento que gerou este contêiner. As pilhas do pai são
+     * reconstruídas a partir das deste contêiner e do contentor movido, e os índices das duas pilhas
+     * foram guardados por move(), pelo que o custo só depende da altura dessas pilhas. A parcela dos
+     * contentores movidos duas vezes é sempre calculada de novo, retirando a do pai, guardada por move().
+     * Se move() não guardou a parcela do pai para este objetivo, porque a heurística do pai ainda não
+     * tinha sido calculada ou foi calculada para outro objetivo, a heurística é calculada de raiz.
+     *
+     * @param goal O layout objetivo.
+     * @param parentHeuristic O valor retornado pelo último cálculo da heurística do contêiner pai em
+     *                        relação ao mesmo objetivo.
+     * @return O valor heurístico para o layout atual em relação ao objetivo.
+     */
+    @Override
+    public double heuristic(Ilayout goal, double parentHeuristic) {
+        if (movedId == NONE || parentDeadlockGoal != goal) return heuristic(goal);
+
+        byte[] below = ((Container) goal).goalBelow();
+        int source = sourceStack;
+        int target = targetStack;
+        double heuristicCost = parentHeuristic - parentDeadlock;
+
+        // Pilha de origem: no pai tinha ainda o contentor movido no topo
+        if (source < 0) {
+            heuristicCost -= stackHeuristic(below, 0, 0, movedId);
+        } else {
+            heuristicCost -= stackHeuristic(below, bounds[source], bounds[source + 1], movedId);
+            heuristicCost += stackHeuristic(below, bounds[source], bounds[source + 1], NONE);
+        }
 
-                char baseGoal = goalStack.firstElement();
+        // Pilha de destino: no pai não tinha o contentor movido (e não existia se ele foi para o chão)
+        if (ids[bounds[target]] != movedId) {
+            heuristicCost -= stackHeuristic(below, bounds[target], bounds[target + 1] - 1, NONE);
+        }
+        heuristicCost += stackHeuristic(below, bounds[target], bounds[target + 1], NONE);
 
-                // Se encontramos uma pilha no goal com a mesma base
-                if (baseCurrent == baseGoal) {
-                    baseFoundInGoal = true;
+        return heuristicCost + deadlockHeuristic(goal, below);
+    }
 
-                    // Comparar contentores posição a posição
-                    for (int i = 0; i < currentStack.size(); i++) {
-                        char currentChar = currentStack.get(i);
+    /**
+     * Calcula o custo dos segundos movimentos inevitáveis. Um contentor fora da posição final só pode
+     * ser pousado na posição final, por cima do contentor que está abaixo dele no objetivo (o seu suporte),
+     * depois de todos os contentores que estão agora por cima do suporte terem sido movidos. Daí que:
+     * <ul>
+     *     <li>um contentor que está por cima do próprio suporte, na mesma pilha, não pode ir logo para a
+     *     posição final no primeiro movimento, porque o suporte continua tapado por ele, e é movido pelo
+     *     menos duas vezes;</li>
+     *     <li>num ciclo de contentores c1, ..., cn em que cada um está por cima do suporte do seguinte
+     *     (e cn por cima do suporte de c1), o primeiro a ser movido encontra o seu suporte ainda tapado
+     *     pelo seguinte, que não se moveu, e também é movido pelo menos duas vezes.</li>
+     * </ul>
+     * A parcela é a soma do custo dos contentores do primeiro caso com o menor custo de cada ciclo, para
+     * ciclos sem contentores em comum encontrados por uma procura em profundidade. Como cada um destes
+     * contentores já conta um movimento na parcela das pilhas e são todos diferentes, a soma continua a
+     * não ultrapassar o custo ótimo.
+     *
+     * @param goal O layout objetivo, guardado com o resultado para o cálculo incremental dos filhos.
+     * @param below O contentor abaixo de cada contentor no objetivo.
+     * @return O custo dos segundos movimentos.
+     */
+    private int deadlockHeuristic(Ilayout goal, byte[] below) {
+        final byte white = 0;
+        final byte grey = 1;
+        final byte black = 2;
+        final byte used = 3;
+        int n = ids.length;
+        Scratch scratch = SCRATCH.get();
+        scratch.ensure(n);
+        // position só é lido nos contentores deste estado, e next e path são escritos antes de serem lidos
+        byte[] position = scratch.position;
+        byte[] stackEnd = scratch.stackEnd;
+        byte[] mark = scratch.mark;
+        int[] next = scratch.next;
+        int[] path = scratch.path;
+        Arrays.fill(mark, 0, n, white);
+        int total = 0;
+
+        for (int k = 0; k < stackCount(); k++) {
+            for (int i = bounds[k]; i < bounds[k + 1]; i++) {
+                position[ids[i]] = (byte) i;
+                stackEnd[i] = bounds[k + 1];
+            }
+        }
 
-                        // Se não há mais elementos no stack goal para comparar ou os contentores diferem
-                        if (i >= goalStack.size() || currentChar != goalStack.get(i)) {
-                            // Somar o custo do contentor fora de posição
-                            heuristicCost += containerInfo.get(currentChar);
+        // Os contentores na posição final, os que vão para o chão e os que estão por cima do próprio
+        // suporte não entram nos ciclos
+        for (int k = 0; k < stackCount(); k++) {
+            boolean inPlace = true;
+            byte previous = NONE;
+            for (int i = bounds[k]; i < bounds[k + 1]; i++) {
+                byte c = ids[i];
+                if (inPlace && below[c] != previous) inPlace = false;
+                previous = c;
+                if (inPlace || below[c] <= NONE) {
+                    mark[i] = used;
+                } else if (stackEnd[position[below[c]]] == bounds[k + 1] && position[below[c]] < i) {
+                    total += costs[c];
+                    mark[i] = used;
+                }
+            }
+        }
 
-                            // Somar o custo de cada contentor que bloqueia este
-                            for (int j = i + 1; j < currentStack.size(); j++) {
-                                heuristicCost += containerInfo.get(currentStack.get(j));
-                            }
-                            break;  // sair após encontrar o primeiro desalinhamento
-                        }
+        for (int start = 0; start < n; start++) {
+            if (mark[start] != white) continue;
+            int depth = 0;
+            path[depth++] = start;
+            mark[start] = grey;
+            next[start] = position[below[ids[start]]] + 1;
+            while (depth > 0) {
+                int i = path[depth - 1];
+                int support = position[below[ids[i]]];
+                if (next[i] == stackEnd[support]) {
+                    mark[i] = black;
+                    depth--;
+                    continue;
+                }
+                int j = next[i]++;
+                if (mark[j] == white) {
+                    mark[j] = grey;
+                    next[j] = position[below[ids[j]]] + 1;
+                    path[depth++] = j;
+                } else if (mark[j] == grey) {
+                    // Ciclo de j até i: o contentor mais barato é movido duas vezes
+                    int min = Integer.MAX_VALUE;
+                    int d = depth - 1;
+                    while (true) {
+                        min = Math.min(min, costs[ids[path[d]]]);
+                        mark[path[d]] = used;
+                        if (path[d] == j) break;
+                        d--;
                     }
-                    break;  // sair após encontrar a base correspondente
+                    total += min;
+                    for (int e = 0; e < d; e++) mark[path[e]] = white;
+                    depth = 0;
+                    if (mark[start] == white) start--;
                 }
             }
+        }
 
-            // Se a base não foi encontrada em nenhum stack do goal, somar custos de todos os contentores no stack
-            if (!baseFoundInGoal) {
-                for (char c : currentStack) {
-                    heuristicCost += containerInfo.get(c);
+        deadlockGoal = goal;
+        deadlock = total;
+        return total;
+    }
+
+    /**
+     * Retorna, para cada contentor, o contentor que está imediatamente abaixo dele no objetivo,
+     * quando este contêiner é usado como objetivo.
+     *
+     * @return Um array indexado pelo contentor com o contentor de baixo, NONE para as bases
+     *         e ABSENT para os contentores que não aparecem no objetivo.
+     */
+    private byte[] goalBelow() {
+        if (goalBelow == null) {
+            byte[] below = new byte[MAX_ID];
+            Arrays.fill(below, ABSENT);
+            for (int k = 0; k < stackCount(); k++) {
+                below[ids[bounds[k]]] = NONE;
+                for (int i = bounds[k] + 1; i < bounds[k + 1]; i++) {
+                    below[ids[i]] = ids[i - 1];
                 }
             }
+            goalBelow = below;
+        }
+        return goalBelow;
+    }
+
+    /**
+     * Calcula a contribuição de uma pilha para a heurística: o custo do primeiro contentor fora da
+     * posição final, contando da base, e de todos os que estão por cima dele.
+     *
+     * @param below O contentor abaixo de cada contentor no objetivo.
+     * @param from O índice da base da pilha em ids.
+     * @param to O índice a seguir ao topo da pilha em ids.
+     * @param extra Um contentor a considerar no topo da pilha, ou NONE.
+     * @return O custo dos contentores da pilha que terão de ser movidos.
+     */
+    private int stackHeuristic(byte[] below, int from, int to, byte extra) {
+        int heuristicCost = 0;
+        boolean inPlace = true;
+        byte previous = NONE;
+
+        for (int i = from; i < to; i++) {
+            byte c = ids[i];
+            if (inPlace && below[c] != previous) inPlace = false;
+            if (!inPlace) heuristicCost += costs[c];
+            previous = c;
+        }
+        if (extra != NONE && (!inPlace || below[extra] != previous)) {
+            heuristicCost += costs[extra];
         }
 
         return heuristicCost;
     }
 
 
-}
\ No newline at end of file
+}
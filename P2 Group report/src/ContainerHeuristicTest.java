@@ -0,0 +1,83 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+
+/**
+ * Testes da heurística do Container. A admissibilidade é verificada contra o custo ótimo exato de todos os
+ * estados de instâncias pequenas, calculado por Dijkstra a partir do objetivo (os movimentos são reversíveis
+ * com o mesmo custo, pelo que a distância do objetivo a um estado é igual à do estado ao objetivo).
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ */
+class ContainerHeuristicTest {
+    @Test
+    void testCicloDeBloqueio() {
+        // A está sobre o suporte de B e B sobre o suporte de A: um dos dois é movido duas vezes
+        Container start = new Container("P1A1 Q1B1");
+        Ilayout goal = start.prepareGoal(new Container("PB QA"));
+        assertEquals(3.0, start.heuristic(goal));
+        assertEquals(3, (int) distances(start, goal).get(start));
+    }
+
+    @Test
+    void testHeuristicaAdmissivel() {
+        Random random = new Random(24);
+        for (int instance = 0; instance < 20; instance++) {
+            Container start = new Container(TestInstances.randomConfig(random, 6, true));
+            Ilayout goal = start.prepareGoal(new Container(TestInstances.randomConfig(random, 6, false)));
+            for (Map.Entry<Container, Integer> e : distances(start, goal).entrySet()) {
+                double h = e.getKey().heuristic(goal);
+                assertTrue(h <= e.getValue(), e.getKey().canonical() + ": h=" + h + " > " + e.getValue());
+            }
+        }
+    }
+
+    @Test
+    void testHeuristicaIncremental() {
+        Random random = new Random(7);
+        for (int instance = 0; instance < 20; instance++) {
+            Container start = new Container(TestInstances.randomConfig(random, 6, true));
+            Ilayout goal = start.prepareGoal(new Container(TestInstances.randomConfig(random, 6, false)));
+            double h = start.heuristic(goal);
+            for (Ilayout child : start.children()) {
+                double incremental = child.heuristic(goal, h);
+                for (Ilayout grandchild : child.children()) {
+                    Container copy = ((Container) grandchild).clone();
+                    assertEquals(copy.heuristic(goal), grandchild.heuristic(goal, incremental));
+                }
+            }
+        }
+    }
+
+    /**
+     * Calcula o custo ótimo de todos os estados até ao objetivo. Os estados são expandidos a partir de
+     * cópias sem movimento de origem, para que a poda de movimentos não influencie as distâncias.
+     *
+     * @param start Um estado do problema, de onde vêm os custos dos contentores.
+     * @param goal O objetivo.
+     * @return O custo ótimo de cada estado.
+     */
+    private static Map<Container, Integer> distances(Container start, Ilayout goal) {
+        Map<Container, Integer> dist = new HashMap<>();
+        PriorityQueue<Map.Entry<Container, Integer>> queue = new PriorityQueue<>(Map.Entry.comparingByValue());
+        Container root = (Container) start.unpack(goal.pack());
+        dist.put(root, 0);
+        queue.add(Map.entry(root, 0));
+        while (!queue.isEmpty()) {
+            Map.Entry<Container, Integer> e = queue.poll();
+            if (e.getValue() > dist.get(e.getKey())) continue;
+            for (Ilayout child : e.getKey().clone().children()) {
+                Container c = ((Container) child).clone();
+                int d = e.getValue() + (int) child.getK();
+                if (d < dist.getOrDefault(c, Integer.MAX_VALUE)) {
+                    dist.put(c, d);
+                    queue.add(Map.entry(c, d));
+                }
+            }
+        }
+        return dist;
+    }
+}
@@ -0,0 +1,483 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Classe que implementa o algoritmo A* com a fronteira e os estados fechados guardados em disco, para
+ * instâncias em que a procura não cabe em memória (External A*, Edelkamp, Jabbar e Schrödl, 2004).
+ * Os estados são agrupados em baldes pelo par (f, g) e cada balde é um ficheiro escrito sequencialmente
+ * através de um FileChannel. Os baldes são expandidos por ordem crescente de f e, dentro de cada f, por ordem
+ * crescente de g. Os duplicados não são detetados quando os estados são gerados, mas apenas quando o balde
+ * é expandido: o balde é ordenado pela chave do layout (Ilayout.key()) em blocos que cabem em memória,
+ * os blocos são intercalados e cada estado é comparado, também por intercalação, com os ficheiros de
+ * fechados dos custos entre g - 2c e g, em que c é o maior custo de movimento visto até aí. Como os
+ * movimentos são reversíveis com o mesmo custo, o pai de um estado de custo g foi fechado com custo
+ * g - c e não pode ter um vizinho fechado com custo menor do que g - 2c, pelo que os ficheiros mais
+ * antigos não são abertos. Os estados fechados de cada custo g ficam num único ficheiro ordenado, ao qual
+ * são intercalados os estados que sobrevivem em cada balde com esse custo.
+ * Em memória fica apenas um bloco de estados, o índice dos ficheiros e os buffers de leitura e escrita.
+ * O caminho é reconstruído seguindo as chaves dos pais nos ficheiros de fechados e voltando a aplicar os
+ * movimentos a partir da raiz, pelo que os layouts têm de poder ser guardados em disco (Ilayout.pack())
+ * e os custos e a heurística têm de ser inteiros.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ * @inv pending contém os baldes com ficheiro de abertos por expandir; closedByG associa a cada custo g
+ *      um único ficheiro, ordenado por chave e sem chaves repetidas; maxMoveCost é o maior custo de
+ *      movimento dos estados gerados.
+ */
+class ExternalAStar {
+    private static final int BUFFER_BYTES = 1 << 16;
+    private static final int DEFAULT_MEMORY_RECORDS = 1 << 20;
+    private static final int ROOT = -1;
+
+    private final Path directory;
+    private final int memoryRecords;
+    private Path work;
+    private Ilayout root;
+    private Ilayout objective;
+    private TreeSet<Long> pending;
+    private TreeMap<Integer, Path> closedByG;
+    private Map<Long, RecordWriter> writers;
+    private int maxMoveCost;
+    private int files;
+
+    /**
+     * Estado guardado em disco: a chave do layout, a chave e o custo do pai, o movimento que o gerou,
+     * o valor heurístico e o layout escrito com Ilayout.pack().
+     */
+    private static final class Record {
+        private static final int HEADER_BYTES = 8 + 8 + 4 + 4 + 4 + 4;
+
+        private final long key;
+        private final long parent;
+        private final int parentG;
+        private final int move;
+        private final int h;
+        private final byte[] packed;
+
+        private Record(long key, long parent, int parentG, int move, int h, byte[] packed) {
+            this.key = key;
+            this.parent = parent;
+            this.parentG = parentG;
+            this.move = move;
+            this.h = h;
+            this.packed = packed;
+        }
+
+        private int size() {
+            return HEADER_BYTES + packed.length;
+        }
+    }
+
+    /**
+     * Escrita sequencial de estados no fim de um ficheiro, através de um buffer direto.
+     */
+    private static final class RecordWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+        private RecordWriter(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+
+        private void write(Record r) throws IOException {
+            if (buffer.remaining() < r.size()) flush();
+            buffer.putLong(r.key).putLong(r.parent).putInt(r.parentG).putInt(r.move).putInt(r.h)
+                    .putInt(r.packed.length).put(r.packed);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            channel.close();
+        }
+    }
+
+    /**
+     * Leitura sequencial dos estados de um ficheiro, através de um buffer direto.
+     */
+    private static final class RecordReader implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private Record head;
+
+        private RecordReader(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            buffer.flip();
+            advance();
+        }
+
+        /**
+         * Avança para o estado seguinte do ficheiro.
+         *
+         * @return O estado que estava à cabeça antes de avançar, ou null no fim do ficheiro.
+         * @throws IOException Se o ficheiro não puder ser lido ou estiver truncado.
+         */
+        private Record advance() throws IOException {
+            Record previous = head;
+            head = null;
+            if (fill(Record.HEADER_BYTES)) {
+                long key = buffer.getLong();
+                long parent = buffer.getLong();
+                int parentG = buffer.getInt();
+                int move = buffer.getInt();
+                int h = buffer.getInt();
+                byte[] packed = new byte[buffer.getInt()];
+                if (!fill(packed.length)) throw new IOException("Ficheiro de estados truncado");
+                buffer.get(packed);
+                head = new Record(key, parent, parentG, move, h, packed);
+            }
+            return previous;
+        }
+
+        /**
+         * Garante que o buffer tem pelo menos o número de bytes pedido, lendo mais do ficheiro se for preciso.
+         *
+         * @param bytes O número de bytes.
+         * @return false se o ficheiro acabou antes de haver bytes suficientes.
+         * @throws IOException Se o ficheiro não puder ser lido.
+         */
+        private boolean fill(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) return true;
+            buffer.compact();
+            while (buffer.position() < bytes && channel.read(buffer) >= 0) {
+                // Lê até ter bytes suficientes ou chegar ao fim do ficheiro
+            }
+            buffer.flip();
+            return buffer.remaining() >= bytes;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Construtor que guarda os ficheiros da procura no diretório temporário do sistema e ordena
+     * blocos de até 2^20 estados em memória.
+     */
+    public ExternalAStar() {
+        this(Path.of(System.getProperty("java.io.tmpdir")), DEFAULT_MEMORY_RECORDS);
+    }
+
+    /**
+     * Construtor que permite escolher onde ficam os ficheiros da procura e quantos estados são
+     * ordenados de cada vez em memória.
+     *
+     * @param directory O diretório onde é criado, em cada procura, um subdiretório para os ficheiros.
+     * @param memoryRecords O número máximo de estados guardados em memória ao mesmo tempo.
+     * @throws IllegalArgumentException Se o número de estados não for positivo.
+     */
+    public ExternalAStar(Path directory, int memoryRecords) {
+        if (memoryRecords < 1) throw new IllegalArgumentException("Número de estados inválido: " + memoryRecords);
+        this.directory = directory;
+        this.memoryRecords = memoryRecords;
+    }
+
+    /**
+     * Resolve o problema a partir de um layout inicial até um layout objetivo. Os ficheiros da procura
+     * são apagados no fim.
+     *
+     * @param s O layout inicial.
+     * @param goal O layout objetivo.
+     * @return Um iterador sobre a sequência de estados que leva à solução, ou null se não houver solução.
+     * @throws IOException Se os ficheiros da procura não puderem ser escritos ou lidos.
+     */
+    public Iterator<BestFirst.State> solve(Ilayout s, Ilayout goal) throws IOException {
+        root = s;
+        objective = goal;
+        pending = new TreeSet<>();
+        closedByG = new TreeMap<>();
+        writers = new HashMap<>();
+        maxMoveCost = 0;
+        files = 0;
+        work = Files.createTempDirectory(directory, "external-astar");
+        try {
+            int h = (int) Math.ceil(s.heuristic(objective));
+            try (RecordWriter out = writer(h, 0)) {
+                out.write(new Record(s.key(), 0, 0, ROOT, h, s.pack()));
+            }
+            writers.clear();
+
+            while (!pending.isEmpty()) {
+                long bucket = pending.pollFirst();
+                Record found = expandBucket((int) (bucket >>> 32), (int) bucket);
+                if (found != null) return solutionPath(found);
+            }
+            return null;
+        } finally {
+            for (RecordWriter w : writers.values()) w.close();
+            try (Stream<Path> leftover = Files.list(work)) {
+                for (Path p : (Iterable<Path>) leftover::iterator) Files.delete(p);
+            }
+            Files.delete(work);
+        }
+    }
+
+    /**
+     * Expande um balde: ordena os seus estados por chave, elimina os repetidos e os que já foram fechados
+     * com custo entre g - 2c e g, junta os restantes ao ficheiro de fechados de custo g e gera os seus
+     * filhos nos baldes correspondentes.
+     *
+     * @param f O valor f do balde.
+     * @param g O custo g do balde.
+     * @return O estado objetivo, se algum estado do balde o for, ou null.
+     * @throws IOException Se os ficheiros da procura não puderem ser escritos ou lidos.
+     */
+    private Record expandBucket(int f, int g) throws IOException {
+        // Os filhos com custo de movimento 0 voltam para o mesmo balde, que é lido a partir de outro ficheiro
+        Path batch = work.resolve("batch.bin");
+        Files.move(bucketFile(f, g), batch, StandardCopyOption.REPLACE_EXISTING);
+        List<Path> runs = sortRuns(batch);
+        Files.delete(batch);
+
+        Path closed = work.resolve("closed-" + files++ + ".bin");
+        List<RecordReader> seen = new ArrayList<>();
+        PriorityQueue<RecordReader> merge = new PriorityQueue<>(Comparator.comparingLong(r -> r.head.key));
+        Record found = null;
+        try (RecordWriter out = new RecordWriter(closed)) {
+            for (Path p : closedByG.subMap(g - 2 * maxMoveCost, true, g, true).values()) {
+                seen.add(new RecordReader(p));
+            }
+            for (Path p : runs) {
+                RecordReader in = new RecordReader(p);
+                if (in.head != null) merge.add(in);
+                else in.close();
+            }
+
+            long last = 0;
+            boolean first = true;
+            while (!merge.isEmpty()) {
+                RecordReader in = merge.poll();
+                Record r = in.advance();
+                if (in.head != null) merge.add(in);
+                else in.close();
+
+                if (!first && r.key == last) continue;
+                first = false;
+                last = r.key;
+                if (closedBefore(seen, r.key)) continue;
+
+                out.write(r);
+                if (expand(r, f, g)) {
+                    found = r;
+                    break;
+                }
+            }
+        } finally {
+            for (RecordReader in : merge) in.close();
+            for (RecordReader in : seen) in.close();
+            for (RecordWriter w : writers.values()) w.close();
+            writers.clear();
+            for (Path p : runs) Files.delete(p);
+        }
+        Path previous = closedByG.get(g);
+        if (previous == null) {
+            closedByG.put(g, closed);
+        } else {
+            Path merged = work.resolve("closed-" + files++ + ".bin");
+            mergeClosed(previous, closed, merged);
+            Files.delete(previous);
+            Files.delete(closed);
+            closedByG.put(g, merged);
+        }
+        return found;
+    }
+
+    /**
+     * Intercala dois ficheiros de fechados ordenados e sem chaves em comum num único ficheiro ordenado.
+     *
+     * @param a Um dos ficheiros de fechados.
+     * @param b O outro ficheiro de fechados.
+     * @param merged O ficheiro onde é escrita a intercalação.
+     * @throws IOException Se os ficheiros não puderem ser escritos ou lidos.
+     */
+    private static void mergeClosed(Path a, Path b, Path merged) throws IOException {
+        try (RecordReader left = new RecordReader(a); RecordReader right = new RecordReader(b);
+             RecordWriter out = new RecordWriter(merged)) {
+            while (left.head != null || right.head != null) {
+                boolean fromLeft = right.head == null || left.head != null && left.head.key < right.head.key;
+                out.write(fromLeft ? left.advance() : right.advance());
+            }
+        }
+    }
+
+    /**
+     * Divide um ficheiro de estados em ficheiros ordenados por chave com, no máximo, memoryRecords estados.
+     *
+     * @param file O ficheiro de estados.
+     * @return Os ficheiros ordenados.
+     * @throws IOException Se os ficheiros não puderem ser escritos ou lidos.
+     */
+    private List<Path> sortRuns(Path file) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        List<Record> chunk = new ArrayList<>();
+        try (RecordReader in = new RecordReader(file)) {
+            while (in.head != null) {
+                chunk.clear();
+                while (in.head != null && chunk.size() < memoryRecords) chunk.add(in.advance());
+                chunk.sort(Comparator.comparingLong(r -> r.key));
+                Path run = work.resolve("run-" + files++ + ".bin");
+                try (RecordWriter out = new RecordWriter(run)) {
+                    for (Record r : chunk) out.write(r);
+                }
+                runs.add(run);
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Verifica se uma chave aparece em algum dos ficheiros de fechados abertos. Como as chaves chegam por
+     * ordem crescente, cada ficheiro só é percorrido uma vez.
+     *
+     * @param seen Os leitores dos ficheiros de fechados, posicionados antes da chave.
+     * @param key A chave do layout.
+     * @return true se o estado já foi fechado.
+     * @throws IOException Se os ficheiros não puderem ser lidos.
+     */
+    private static boolean closedBefore(List<RecordReader> seen, long key) throws IOException {
+        boolean closed = false;
+        for (RecordReader in : seen) {
+            while (in.head != null && in.head.key < key) in.advance();
+            if (in.head != null && in.head.key == key) closed = true;
+        }
+        return closed;
+    }
+
+    /**
+     * Gera os filhos de um estado, exceto o regresso ao pai, e escreve-os nos baldes correspondentes.
+     * O valor f de cada filho nunca é menor do que o do pai (pathmax).
+     *
+     * @param r O estado.
+     * @param f O valor f do estado.
+     * @param g O custo g do estado.
+     * @return true se o estado for o objetivo, caso em que não é expandido.
+     * @throws IOException Se os filhos não puderem ser escritos.
+     */
+    private boolean expand(Record r, int f, int g) throws IOException {
+        Ilayout layout = root.unpack(r.packed);
+        if (layout.isGoal(objective)) return true;
+
+        List<Record> children = new ArrayList<>();
+        List<Long> buckets = new ArrayList<>();
+        layout.forEachMove((move, key, cost) -> {
+            if (r.move != ROOT && key == r.parent) return;
+            Ilayout e = layout.applyMove(move);
+            int h = (int) Math.ceil(e.heuristic(objective, r.h));
+            int childG = g + (int) cost;
+            maxMoveCost = Math.max(maxMoveCost, (int) cost);
+            children.add(new Record(key, r.key, g, move, h, e.pack()));
+            buckets.add(bucket(Math.max(f, childG + h), childG));
+        });
+        for (int i = 0; i < children.size(); i++) {
+            long bucket = buckets.get(i);
+            writer((int) (bucket >>> 32), (int) bucket).write(children.get(i));
+        }
+        return false;
+    }
+
+    /**
+     * Retorna o escritor do ficheiro de abertos de um balde, abrindo-o se for preciso.
+     *
+     * @param f O valor f do balde.
+     * @param g O custo g do balde.
+     * @return O escritor do balde.
+     * @throws IOException Se o ficheiro não puder ser aberto.
+     */
+    private RecordWriter writer(int f, int g) throws IOException {
+        long bucket = bucket(f, g);
+        RecordWriter w = writers.get(bucket);
+        if (w == null) {
+            w = new RecordWriter(bucketFile(f, g));
+            writers.put(bucket, w);
+            pending.add(bucket);
+        }
+        return w;
+    }
+
+    /**
+     * Codifica um balde num long que ordena os baldes por f e depois por g.
+     *
+     * @param f O valor f do balde.
+     * @param g O custo g do balde.
+     * @return O identificador do balde.
+     */
+    private static long bucket(int f, int g) {
+        return (long) f << 32 | g;
+    }
+
+    /**
+     * Retorna o ficheiro de abertos de um balde.
+     *
+     * @param f O valor f do balde.
+     * @param g O custo g do balde.
+     * @return O caminho do ficheiro.
+     */
+    private Path bucketFile(int f, int g) {
+        return work.resolve("open-" + f + "-" + g + ".bin");
+    }
+
+    /**
+     * Reconstrói a sequência de estados desde a raiz até ao objetivo, procurando cada pai nos ficheiros
+     * de fechados com o seu custo e voltando a aplicar os movimentos a partir da raiz.
+     *
+     * @param goal O estado objetivo.
+     * @return Um iterador sobre a sequência de estados.
+     * @throws IOException Se os ficheiros de fechados não puderem ser lidos.
+     */
+    private Iterator<BestFirst.State> solutionPath(Record goal) throws IOException {
+        List<Integer> moves = new ArrayList<>();
+        for (Record r = goal; r.move != ROOT; r = findClosed(r.parent, r.parentG)) {
+            moves.add(r.move);
+        }
+        Collections.reverse(moves);
+
+        List<BestFirst.State> solutionPath = new ArrayList<>(moves.size() + 1);
+        Ilayout layout = root;
+        BestFirst.State state = new BestFirst.State(layout, null, layout.heuristic(objective));
+        solutionPath.add(state);
+        for (int move : moves) {
+            layout = layout.applyMove(move);
+            state = new BestFirst.State(layout, state, layout.heuristic(objective, state.getH()));
+            solutionPath.add(state);
+        }
+        return solutionPath.iterator();
+    }
+
+    /**
+     * Procura um estado no ficheiro de fechados de um dado custo.
+     *
+     * @param key A chave do layout.
+     * @param g O custo com que o estado foi fechado.
+     * @return O estado guardado.
+     * @throws IOException Se os ficheiros não puderem ser lidos ou o estado não for encontrado.
+     */
+    private Record findClosed(long key, int g) throws IOException {
+        Path p = closedByG.get(g);
+        if (p != null) {
+            try (RecordReader in = new RecordReader(p)) {
+                while (in.head != null && in.head.key < key) in.advance();
+                if (in.head != null && in.head.key == key) return in.head;
+            }
+        }
+        throw new IOException("Estado fechado não encontrado: " + key);
+    }
+}
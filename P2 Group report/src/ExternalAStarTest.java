@@ -0,0 +1,51 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Testes do A* em memória externa. Com poucos estados em memória, cada balde é dividido em vários ficheiros
+ * ordenados que têm de ser intercalados, e o custo de cada solução é comparado com o da procura Best-First.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ */
+class ExternalAStarTest {
+
+    @Test
+    void testCustoOtimoComBaldesEmDisco() throws IOException {
+        Path directory = Files.createTempDirectory("external-astar-test");
+        try {
+            Random random = new Random(22);
+            for (int instance = 0; instance < 40; instance++) {
+                Container start = new Container(TestInstances.randomConfig(random, 6, true));
+                Container goal = new Container(TestInstances.randomConfig(random, 6, false));
+                ExternalAStar external = new ExternalAStar(directory, 1 + random.nextInt(8));
+                assertEquals(TestInstances.cost(new BestFirst().solve(start, goal), goal),
+                        TestInstances.cost(external.solve(start, goal), goal), start.canonical());
+                try (Stream<Path> leftover = Files.list(directory)) {
+                    assertEquals(0, leftover.count(), "Ficheiros da procura não foram apagados");
+                }
+            }
+        } finally {
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    void testInicialJaEObjetivo() throws IOException {
+        Path directory = Files.createTempDirectory("external-astar-test");
+        try {
+            Container start = new Container("A1 B2");
+            assertEquals(0.0, TestInstances.cost(new ExternalAStar(directory, 1).solve(start, new Container("A B")),
+                    new Container("A B")));
+        } finally {
+            Files.delete(directory);
+        }
+    }
+}
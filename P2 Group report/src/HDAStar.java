@@ -0,0 +1,282 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Classe que implementa o algoritmo A* paralelo com distribuição por hash (HDA*).
+ * Cada thread é dona de uma parte do espaço de estados, escolhida pela chave do layout, e tem
+ * a sua própria lista de abertos e o seu próprio registo dos estados conhecidos. Os sucessores
+ * gerados são enviados à thread dona através de filas sem locks, pelo que nenhuma estrutura
+ * da procura é partilhada entre threads.
+ * A procura só termina quando não existe nenhum estado aberto nem em trânsito, e todos os estados
+ * com f não inferior ao custo da melhor solução encontrada são descartados, o que garante uma
+ * solução ótima para heurísticas admissíveis.
+ * Cada thread conta os estados que enviou e os que recebeu, sem contadores partilhados. Uma thread sem
+ * trabalho deteta o fim da procura com o método dos quatro contadores (Mattern, 1987): percorre as
+ * threads somando os estados recebidos e verificando que estão todas paradas, volta a percorrê-las
+ * somando os estados enviados, e a procura terminou se as duas somas forem iguais. Enquanto espera,
+ * a thread vai dormindo durante intervalos cada vez maiores, e é acordada quando lhe enviam um estado.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ * @inv O contador de enviados de cada thread é incrementado antes de o estado entrar na caixa de
+ *      entrada, e o de recebidos depois de o estado ter sido processado; uma thread só está parada
+ *      quando a sua caixa de entrada e a sua lista de abertos estão vazias.
+ * @see https://doi.org/10.1609/icaps.v19i1.13348
+ */
+class HDAStar {
+    private static final int SPINS = 64; // Esperas ativas antes de a thread começar a dormir
+    private static final long MIN_PARK_NANOS = 10_000;
+    private static final long MAX_PARK_NANOS = 1_000_000;
+
+    private final int threads;
+    private final boolean integerCosts;
+    private Ilayout objective;
+    private Worker[] workers;
+    private volatile boolean done;
+    private AtomicReference<BestFirst.State> incumbent;
+    private AtomicReference<Throwable> failure;
+
+    /**
+     * Construtor que cria uma procura com uma thread por processador e custos inteiros.
+     */
+    public HDAStar() {
+        this(Runtime.getRuntime().availableProcessors(), true);
+    }
+
+    /**
+     * Construtor que permite escolher o número de threads e a lista de abertos.
+     *
+     * @param threads O número de threads da procura.
+     * @param integerCosts true se os custos e a heurística forem sempre inteiros (lista em baldes);
+     *                     false para usar uma fila de prioridade.
+     * @throws IllegalArgumentException Se o número de threads não for positivo.
+     */
+    public HDAStar(int threads, boolean integerCosts) {
+        if (threads < 1) throw new IllegalArgumentException("Número de threads inválido: " + threads);
+        this.threads = threads;
+        this.integerCosts = integerCosts;
+    }
+
+    /**
+     * Resolve o problema a partir de um layout inicial até um layout objetivo, usando todas as threads.
+     *
+     * @param s O layout inicial.
+     * @param goal O layout objetivo.
+     * @return Um iterador sobre a sequência de estados que leva à solução, ou null se não houver solução.
+     * @throws InterruptedException Se a thread for interrompida enquanto espera pelas threads da procura.
+     * @throws RuntimeException A primeira exceção lançada por uma das threads da procura (as restantes
+     *                          threads terminam assim que ela é registada).
+     * @throws Error O primeiro erro lançado por uma das threads da procura, como OutOfMemoryError.
+     */
+    public Iterator<BestFirst.State> solve(Ilayout s, Ilayout goal) throws InterruptedException {
+        objective = goal;
+        done = false;
+        incumbent = new AtomicReference<>();
+        failure = new AtomicReference<>();
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) workers[i] = new Worker();
+
+        // A heurística da raiz é calculada antes de as threads começarem, o que também deixa
+        // preparada qualquer informação que o objetivo guarde na primeira utilização
+        send(workers[0], new BestFirst.State(s, null, s.heuristic(goal)));
+
+        Thread[] pool = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            pool[i] = new Thread(workers[i], "hda-" + i);
+            pool[i].start();
+        }
+        try {
+            for (Thread t : pool) t.join();
+        } finally {
+            for (Thread t : pool) t.interrupt(); // Só tem efeito se esta thread foi interrompida
+        }
+
+        Throwable t = failure.get();
+        if (t instanceof RuntimeException) throw (RuntimeException) t;
+        if (t instanceof Error) throw (Error) t;
+        if (t != null) throw new IllegalStateException("Falha numa thread da procura", t);
+
+        BestFirst.State best = incumbent.get();
+        if (best == null) return null;
+        List<BestFirst.State> solutionPath = new ArrayList<>();
+        for (BestFirst.State current = best; current != null; current = current.getFather()) {
+            solutionPath.add(current);
+        }
+        Collections.reverse(solutionPath);
+        return solutionPath.iterator();
+    }
+
+    /**
+     * Envia um estado para a caixa de entrada da thread dona do seu layout, acordando-a se estiver parada.
+     *
+     * @param from A thread que envia o estado, que o conta como enviado.
+     * @param state O estado a enviar.
+     */
+    private void send(Worker from, BestFirst.State state) {
+        from.sent++;
+        Worker to = workers[owner(state.getLayout())];
+        to.inbox.offer(state);
+        if (to.idle) LockSupport.unpark(to.thread);
+    }
+
+    /**
+     * Verifica se a procura terminou: todas as threads estavam paradas e todos os estados enviados
+     * tinham sido recebidos. Os recebidos de cada thread são lidos antes de se ver se está parada,
+     * e os enviados só são somados depois de percorridas todas as threads; se as duas somas forem
+     * iguais, nenhuma thread recebeu nada desde que foi vista parada e não há estados em trânsito.
+     *
+     * @return true se já não há trabalho em nenhuma thread.
+     */
+    private boolean terminated() {
+        long received = 0;
+        for (Worker w : workers) {
+            received += w.received;
+            if (!w.idle) return false;
+        }
+        long sent = 0;
+        for (Worker w : workers) sent += w.sent;
+        return received == sent;
+    }
+
+    /**
+     * Escolhe a thread dona de um layout a partir da sua chave.
+     *
+     * @param l O layout.
+     * @return O índice da thread.
+     */
+    private int owner(Ilayout l) {
+        long z = l.key() * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(z ^ (z >>> 32), (long) threads);
+    }
+
+    /**
+     * Retorna o custo da melhor solução encontrada até agora.
+     *
+     * @return O custo, ou infinito se ainda não houver solução.
+     */
+    private double incumbentCost() {
+        BestFirst.State best = incumbent.get();
+        return best == null ? Double.POSITIVE_INFINITY : best.getG();
+    }
+
+    /**
+     * Regista uma solução se for melhor do que a atual.
+     *
+     * @param solution O estado objetivo alcançado.
+     */
+    private void offerSolution(BestFirst.State solution) {
+        BestFirst.State best;
+        do {
+            best = incumbent.get();
+            if (best != null && best.getG() <= solution.getG()) return;
+        } while (!incumbent.compareAndSet(best, solution));
+    }
+
+    /**
+     * Thread da procura, dona de uma parte do espaço de estados.
+     */
+    private final class Worker implements Runnable {
+        private final ConcurrentLinkedQueue<BestFirst.State> inbox = new ConcurrentLinkedQueue<>();
+        private final OpenList abertos = integerCosts ? new BucketOpenList() : new HeapOpenList();
+        private final Map<Ilayout, BestFirst.State> known = new HashMap<>();
+        private volatile Thread thread;
+        private volatile boolean idle;
+        // Só são escritos pela própria thread (e pela thread de solve() antes de as threads começarem)
+        private volatile long sent;
+        private volatile long received;
+
+        /**
+         * Executa a procura desta thread. Uma exceção ou erro é registado para ser relançado por solve(),
+         * e faz terminar as outras threads, que de outra forma esperariam para sempre pelos estados
+         * pendentes desta.
+         */
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            try {
+                search();
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            }
+        }
+
+        /**
+         * Ciclo da procura: recebe os estados enviados, expande o melhor estado aberto e termina quando
+         * não há trabalho em nenhuma thread, a thread é interrompida ou outra thread falhou.
+         */
+        private void search() {
+            int waits = 0;
+            while (!Thread.currentThread().isInterrupted() && failure.get() == null && !done) {
+                if (!inbox.isEmpty()) {
+                    // Deixa de estar parada antes de retirar um estado, para que terminated() não a veja
+                    // parada com um estado retirado mas ainda não contado
+                    if (idle) idle = false;
+                    BestFirst.State state;
+                    while ((state = inbox.poll()) != null) {
+                        receive(state);
+                        received++;
+                    }
+                }
+
+                if (!abertos.isEmpty()) {
+                    waits = 0;
+                    BestFirst.State actual = abertos.poll();
+                    if (known.get(actual.getLayout()) == actual && actual.getF() < incumbentCost()) {
+                        expand(actual);
+                    }
+                    continue;
+                }
+
+                idle = true;
+                if (!inbox.isEmpty()) continue;
+                if (terminated()) {
+                    done = true;
+                    for (Worker w : workers) LockSupport.unpark(w.thread);
+                    return;
+                }
+                if (waits < SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, MIN_PARK_NANOS << Math.min(waits - SPINS, 7)));
+                }
+                waits++;
+            }
+        }
+
+        /**
+         * Aceita um estado enviado por outra thread se for o melhor caminho conhecido para o seu layout.
+         *
+         * @param state O estado recebido.
+         */
+        private void receive(BestFirst.State state) {
+            BestFirst.State best = known.get(state.getLayout());
+            if ((best != null && best.getG() <= state.getG()) || state.getF() >= incumbentCost()) return;
+            known.put(state.getLayout(), state);
+            abertos.add(state);
+        }
+
+        /**
+         * Expande um estado: regista-o como solução se for o objetivo, ou envia os seus sucessores
+         * às threads donas. A thread só volta a ficar parada depois de enviar todos os sucessores.
+         *
+         * @param actual O estado a expandir.
+         */
+        private void expand(BestFirst.State actual) {
+            Ilayout layout = actual.getLayout();
+            if (layout.isGoal(objective)) {
+                offerSolution(actual);
+                return;
+            }
+            BestFirst.State father = actual.getFather();
+            for (Ilayout e : layout.children()) {
+                if (father != null && e.equals(father.getLayout())) continue;
+                BestFirst.State child = new BestFirst.State(e, actual, e.heuristic(objective, actual.getH()));
+                if (child.getF() < incumbentCost()) send(this, child);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+
+/**
+ * Testes do A* paralelo: com várias threads, o custo de cada solução tem de ser o da procura Best-First,
+ * e a procura tem de terminar também quando não há trabalho para todas as threads.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ */
+class HDAStarTest {
+
+    @Test
+    void testCustoOtimoComVariasThreads() throws InterruptedException {
+        Random random = new Random(10);
+        for (int instance = 0; instance < 40; instance++) {
+            Container start = new Container(TestInstances.randomConfig(random, 7, true));
+            Container goal = new Container(TestInstances.randomConfig(random, 7, false));
+            double expected = TestInstances.cost(new BestFirst().solve(start, goal), goal);
+            for (int threads : new int[]{2, 4, 8}) {
+                HDAStar parallel = new HDAStar(threads, instance % 2 == 0);
+                assertEquals(expected, TestInstances.cost(parallel.solve(start, goal), goal),
+                        start.canonical() + " com " + threads + " threads");
+            }
+        }
+    }
+
+    @Test
+    void testInicialJaEObjetivo() throws InterruptedException {
+        Container goal = new Container("A B");
+        assertEquals(0.0, TestInstances.cost(new HDAStar(4, true).solve(new Container("A1 B1"), goal), goal));
+    }
+}
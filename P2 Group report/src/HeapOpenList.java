@@ -0,0 +1,45 @@
+import java.util.PriorityQueue;
+
+/**
+ * Lista de abertos baseada numa fila de prioridade (heap binária).
+ * Serve para qualquer custo, incluindo custos não inteiros, com inserção e remoção em O(log n).
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ * @inv A fila está ordenada por f crescente e, em caso de empate, por g decrescente.
+ */
+class HeapOpenList implements OpenList {
+    private final PriorityQueue<BestFirst.State> queue;
+
+    /**
+     * Construtor que cria uma lista de abertos vazia.
+     */
+    public HeapOpenList() {
+        queue = new PriorityQueue<>(10, (s1, s2) -> {
+            int c = Double.compare(s1.getF(), s2.getF());
+            return c != 0 ? c : Double.compare(s2.getG(), s1.getG());
+        });
+    }
+
+    @Override
+    public void add(BestFirst.State state) {
+        queue.add(state);
+    }
+
+    @Override
+    public BestFirst.State poll() {
+        return queue.poll();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+}
@@ -14,6 +14,22 @@ import java.util.List;
  */
 interface Ilayout {
 
+    /**
+     * Recebe os movimentos de um layout sem que os layouts filhos sejam criados.
+     */
+    @FunctionalInterface
+    interface MoveVisitor {
+
+        /**
+         * Chamado para cada movimento possível a partir do layout.
+         *
+         * @param move O identificador do movimento, a passar a applyMove() para criar o filho.
+         * @param key A chave do layout filho, igual à que o filho retornaria em key().
+         * @param cost O custo do movimento, igual ao que o filho retornaria em getK().
+         */
+        void visit(int move, long key, double cost);
+    }
+
     /**
      * Gera e retorna uma lista de layouts filhos a partir do layout atual.
      *
@@ -21,6 +37,33 @@ interface Ilayout {
      */
     List<Ilayout> children();
 
+    /**
+     * Percorre os movimentos possíveis a partir do layout atual, indicando a chave e o custo de cada
+     * filho sem o criar. Permite à procura descartar os filhos já conhecidos antes de gastar memória
+     * com eles, e criar com applyMove() apenas os que sobram. Os movimentos são visitados pela mesma
+     * ordem dos filhos retornados por children().
+     * Por omissão, gera todos os filhos com children(); as implementações que queiram evitar essas
+     * cópias devem redefinir este método e applyMove() em conjunto.
+     *
+     * @param visitor O visitante que recebe cada movimento.
+     */
+    default void forEachMove(MoveVisitor visitor) {
+        List<Ilayout> children = children();
+        for (int i = 0; i < children.size(); i++) {
+            visitor.visit(i, children.get(i).key(), children.get(i).getK());
+        }
+    }
+
+    /**
+     * Cria o layout filho que resulta de um movimento visitado por forEachMove().
+     *
+     * @param move O identificador do movimento.
+     * @return O layout filho, igual ao que children() retornaria para esse movimento.
+     */
+    default Ilayout applyMove(int move) {
+        return children().get(move);
+    }
+
     /**
      * Verifica se o layout atual corresponde ao layout objetivo fornecido.
      *
@@ -43,4 +86,93 @@ interface Ilayout {
      * @return O valor heurístico que estima a distância para o objetivo.
      */
     double heuristic(Ilayout goal);
+
+    /**
+     * Calcula o valor heurístico de um layout filho a partir do valor heurístico do seu pai.
+     * Um layout gerado por children() conhece o movimento que o originou e pode recalcular apenas
+     * a parte da heurística afetada por esse movimento, em vez de percorrer todo o layout.
+     * Por omissão, calcula a heurística de raiz.
+     *
+     * @param goal O layout objetivo para o cálculo da heurística.
+     * @param parentHeuristic O valor heurístico do layout pai em relação ao mesmo objetivo.
+     * @return O valor heurístico do layout atual, igual ao retornado por heuristic(goal).
+     */
+    default double heuristic(Ilayout goal, double parentHeuristic) {
+        return heuristic(goal);
+    }
+
+    /**
+     * Retorna uma chave de 64 bits que identifica o layout, usada para procurar estados já conhecidos
+     * sem percorrer o layout inteiro. Layouts iguais têm sempre a mesma chave; layouts diferentes
+     * só partilham a chave com probabilidade desprezável.
+     * Por omissão, usa o hashCode do layout.
+     *
+     * @return A chave do layout.
+     */
+    default long key() {
+        return hashCode();
+    }
+
+    /**
+     * Escreve o layout numa sequência compacta de bytes, para que possa ser guardado em disco pela procura em
+     * memória externa e lido de novo com unpack().
+     * Por omissão, os layouts não podem ser guardados em disco.
+     *
+     * @return Os bytes que representam o layout.
+     * @throws UnsupportedOperationException Se o layout não puder ser guardado em disco.
+     */
+    default byte[] pack() {
+        throw new UnsupportedOperationException("Layout não pode ser guardado em disco");
+    }
+
+    /**
+     * Reconstrói um layout do mesmo problema deste a partir dos bytes retornados por pack().
+     * Por omissão, os layouts não podem ser guardados em disco.
+     *
+     * @param packed Os bytes do layout.
+     * @return O layout, igual ao que foi escrito com pack().
+     * @throws UnsupportedOperationException Se o layout não puder ser guardado em disco.
+     */
+    default Ilayout unpack(byte[] packed) {
+        throw new UnsupportedOperationException("Layout não pode ser guardado em disco");
+    }
+
+    /**
+     * Gera e retorna os layouts a partir dos quais se chega ao layout atual com um único movimento.
+     * É usado pela procura bidirecional para avançar a partir do objetivo. Cada predecessor deve
+     * retornar em getK() o custo do movimento que o leva ao layout atual.
+     * Por omissão, assume que todos os movimentos são reversíveis e custam o mesmo nos dois sentidos,
+     * como acontece com os contentores, pelo que os predecessores são os próprios filhos.
+     *
+     * @return Uma lista contendo todos os layouts predecessores possíveis.
+     */
+    default List<Ilayout> predecessors() {
+        return children();
+    }
+
+    /**
+     * Retorna uma versão do layout que, com enabled a true, gera cada sequência de movimentos independentes
+     * por uma única ordem (redução de ordem parcial), ou que gera todas as ordens, com enabled a false.
+     * A opção vale para todos os layouts gerados a partir do layout retornado. A procura bidirecional
+     * desliga-a, porque os sucessores podados dependem do sentido da procura.
+     * Por omissão, o layout não tem movimentos independentes a podar e é retornado sem alterações.
+     *
+     * @param enabled true para ligar a redução de ordem parcial.
+     * @return O layout com a opção pedida.
+     */
+    default Ilayout withCommutativePruning(boolean enabled) {
+        return this;
+    }
+
+    /**
+     * Retorna uma versão do layout objetivo que partilha a informação do problema deste layout inicial,
+     * para que o objetivo possa ser expandido pela procura inversa com os mesmos custos de transição.
+     * Por omissão, o próprio objetivo já tem toda a informação necessária.
+     *
+     * @param goal O layout objetivo.
+     * @return O layout objetivo pronto a ser usado como raiz da procura inversa.
+     */
+    default Ilayout prepareGoal(Ilayout goal) {
+        return goal;
+    }
 }
@@ -0,0 +1,146 @@
+/**
+ * Mapa de chaves long para objetos, com endereçamento aberto e sondagem linear. Guarda as chaves num array de
+ * primitivos, pelo que procurar ou guardar um estado pela chave do layout não cria objetos Long nem entradas
+ * de HashMap. As remoções deslocam para trás as chaves seguintes da mesma sequência, sem deixar marcas de
+ * posições apagadas.
+ *
+ * @param <V> O tipo dos valores.
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ * @inv A tabela tem sempre uma capacidade potência de 2 e nunca fica mais do que meio cheia; o valor null
+ *      marca posições livres, e a chave 0 é guardada à parte em zeroValue.
+ */
+class LongObjectMap<V> {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private V zeroValue;
+
+    /**
+     * Construtor que cria um mapa vazio.
+     */
+    public LongObjectMap() {
+        keys = new long[MIN_CAPACITY];
+        values = new Object[MIN_CAPACITY];
+        mask = MIN_CAPACITY - 1;
+    }
+
+    /**
+     * Retorna o valor associado a uma chave.
+     *
+     * @param key A chave.
+     * @return O valor, ou null se a chave não estiver no mapa.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == 0) return zeroValue;
+        for (int i = slot(key); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) return (V) values[i];
+        }
+        return null;
+    }
+
+    /**
+     * Associa um valor a uma chave, substituindo o valor anterior.
+     *
+     * @param key A chave.
+     * @param value O valor, que não pode ser null.
+     * @throws NullPointerException Se o valor for null.
+     */
+    public void put(long key, V value) {
+        if (value == null) throw new NullPointerException("Valor null para a chave " + key);
+        if (key == 0) {
+            if (zeroValue == null) size++;
+            zeroValue = value;
+            return;
+        }
+        int i = slot(key);
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) grow();
+    }
+
+    /**
+     * Remove uma chave do mapa. As chaves seguintes da mesma sequência de sondagem que podem ocupar a posição
+     * libertada são deslocadas para trás, para que as procuras continuem a encontrá-las.
+     *
+     * @param key A chave.
+     */
+    public void remove(long key) {
+        if (key == 0) {
+            if (zeroValue != null) size--;
+            zeroValue = null;
+            return;
+        }
+        int i = slot(key);
+        while (values[i] != null && keys[i] != key) i = (i + 1) & mask;
+        if (values[i] == null) return;
+        size--;
+
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (values[j] == null) break;
+            int home = slot(keys[j]);
+            // A chave em j só pode passar para i se a sua posição inicial não estiver entre i (exclusive) e j
+            boolean between = i <= j ? i < home && home <= j : i < home || home <= j;
+            if (between) continue;
+            keys[i] = keys[j];
+            values[i] = values[j];
+            i = j;
+        }
+        values[i] = null;
+    }
+
+    /**
+     * Retorna o número de chaves no mapa.
+     *
+     * @return O número de chaves.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Mistura os bits da chave para que chaves parecidas fiquem espalhadas pela tabela.
+     *
+     * @param key A chave.
+     * @return A posição inicial da chave na tabela.
+     */
+    private int slot(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+
+    /**
+     * Duplica a capacidade da tabela e volta a inserir todas as chaves.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        mask = keys.length - 1;
+        for (int k = 0; k < oldKeys.length; k++) {
+            if (oldValues[k] == null) continue;
+            int i = slot(oldKeys[k]);
+            while (values[i] != null) i = (i + 1) & mask;
+            keys[i] = oldKeys[k];
+            values[i] = oldValues[k];
+        }
+    }
+}
@@ -0,0 +1,52 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+
+/**
+ * Testes do mapa de chaves long usado para os abertos e fechados do BestFirst. Uma sequência aleatória de
+ * inserções e remoções é comparada com um HashMap; as chaves são tiradas de um intervalo pequeno, com a
+ * chave 0 incluída, para que haja muitas colisões e as remoções tenham de deslocar chaves para trás.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ */
+class LongObjectMapTest {
+    private static final int OPERATIONS = 200_000;
+
+    @Test
+    void testIgualAoHashMap() {
+        LongObjectMap<Integer> map = new LongObjectMap<>();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(9);
+        for (int i = 0; i < OPERATIONS; i++) {
+            long key = random.nextInt(4_000) - 2_000;
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (long key = -2_000; key < 2_000; key++) assertEquals(expected.get(key), map.get(key), "Chave " + key);
+    }
+
+    @Test
+    void testChavesAusentes() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertNull(map.get(0));
+        map.put(0, "zero");
+        map.put(Long.MIN_VALUE, "min");
+        assertEquals("zero", map.get(0));
+        assertEquals("min", map.get(Long.MIN_VALUE));
+        assertNull(map.get(1));
+        map.remove(1);
+        map.remove(0);
+        assertEquals(1, map.size());
+        assertNull(map.get(0));
+        assertThrows(NullPointerException.class, () -> map.put(3, null));
+    }
+}
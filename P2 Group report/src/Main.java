@@ -1,10 +1,35 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 /**
  * Classe principal que executa o algoritmo Best-First para encontrar a
  * configuração final de um contêiner a partir de uma configuração inicial.
  * Lê as configurações iniciais e finais do contêiner, executa o algoritmo de busca
- * e exibe a solução, caso encontrada.
+ * e exibe a solução, caso encontrada. Com o argumento --bidirectional usa a procura bidirecional
+ * e com --parallel usa o A* paralelo (HDA*) com uma thread por processador.
+ * Com --sma &lt;nós&gt; usa o SMA*, que nunca guarda mais do que o número de nós indicado, e com
+ * --anytime usa o ARA*, escrevendo no erro padrão o custo e o limite de subotimalidade de cada solução encontrada.
+ * Com --stats escreve no erro padrão as métricas da procura Best-First, e com --compact a procura Best-First
+ * guarda os estados fechados fora do heap, numa memória limitada por -XX:MaxDirectMemorySize (por omissão,
+ * o mesmo valor de -Xmx). Com --por os movimentos em pilhas diferentes só são gerados
+ * por uma ordem (redução de ordem parcial), exceto na procura bidirecional. Com --timeout &lt;ms&gt; a procura
+ * Best-First desiste ao fim desse tempo, escrevendo no erro padrão o progresso a cada segundo e o resultado.
+ * Com --batch [ficheiro] lê pares de configurações até ao fim da entrada (ou do ficheiro) e
+ * resolve-os em paralelo, uma procura Best-First por par, escrevendo os resultados pela ordem da entrada;
+ * os pares repetidos são respondidos por uma cache de soluções em memória.
+ * Com --cache &lt;ficheiro&gt; resolve o par através de uma cache de soluções guardada nesse ficheiro.
+ * Com --external [diretório] usa o A* em memória externa, que guarda a fronteira e os estados fechados
+ * em ficheiros nesse diretório (ou no diretório temporário do sistema).
  *
  * @author Andreia Qiu 79856
  * @author Eduarda Pereira 79749
@@ -15,40 +40,180 @@ import java.util.Scanner;
  *      para calcular o caminho mínimo entre elas.
  */
 public class Main {
+    private static final int PENDING_PER_THREAD = 4;
+    private static final int CACHE_CAPACITY = 10_000;
+
     /**
      * Método principal que executa a leitura dos contêineres, inicializa o algoritmo Best-First
      * e imprime o resultado da solução, caso exista.
      *
-     * @param args Argumentos passados via linha de comando (não utilizados neste programa).
+     * @param args Argumentos passados via linha de comando (--bidirectional para procurar nos dois sentidos,
+     *             --parallel para usar todas as threads, --sma &lt;nós&gt; para limitar a memória,
+     *             --anytime para ver as soluções intermédias, --cache &lt;ficheiro&gt; para reutilizar soluções,
+     *             --batch [ficheiro] para resolver vários pares, --external [diretório] para guardar a procura em disco,
+     *             --stats para mostrar as métricas da procura, --compact para guardar os fechados fora do heap
+     *             (a usar com -XX:MaxDirectMemorySize para ultrapassar o -Xmx),
+     *             --por para gerar os movimentos independentes por uma única ordem,
+     *             --timeout &lt;ms&gt; para limitar o tempo da procura).
      * @throws Exception Lança uma exceção caso ocorra erro na execução do algoritmo.
      */
     public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "";
+        if (mode.equals("--batch")) {
+            try (BufferedReader in = new BufferedReader(args.length > 1
+                    ? new FileReader(args[1]) : new InputStreamReader(System.in))) {
+                solveBatch(in, System.out, Runtime.getRuntime().availableProcessors());
+            }
+            return;
+        }
+
         Scanner sc = new Scanner(System.in);
 
-        BestFirst s = new BestFirst();
-        Container initialContainer = new Container(sc.nextLine());
+        BestFirst s = new BestFirst(true, Arrays.asList(args).contains("--compact"));
+        SearchStats stats = null;
+        Container initialContainer = new Container(sc.nextLine())
+                .withCommutativePruning(Arrays.asList(args).contains("--por"));
         Container goalContainer = new Container(sc.nextLine());
 
-        Iterator<BestFirst.State> it = s.solve(initialContainer, goalContainer);
-
-        if (it == null) {
-            System.out.println("no solution found");
+        Iterator<BestFirst.State> it;
+        if (mode.equals("--bidirectional")) {
+            it = s.solveBidirectional(initialContainer, goalContainer);
+        } else if (mode.equals("--parallel")) {
+            it = new HDAStar().solve(initialContainer, goalContainer);
+        } else if (mode.equals("--anytime")) {
+            it = new ARAStar().solve(initialContainer, goalContainer, (solution, bound) -> {
+                System.err.printf("cost=%d bound=%.2f%n", (int) solution.getG(), bound);
+                return true;
+            });
+        } else if (mode.equals("--cache")) {
+            try (SolutionCache cache = new SolutionCache(CACHE_CAPACITY, Path.of(args[1]))) {
+                it = cache.solve(initialContainer, goalContainer);
+            }
+        } else if (mode.equals("--external")) {
+            ExternalAStar external = args.length > 1 && !args[1].startsWith("--") ? new ExternalAStar(Path.of(args[1]), 1 << 20)
+                    : new ExternalAStar();
+            it = external.solve(initialContainer, goalContainer);
+        } else if (mode.equals("--sma")) {
+            it = new SMAStar(Integer.parseInt(args[1])).solve(initialContainer, goalContainer);
         } else {
-            BestFirst.State lastState = null;
-
-            // Percorre até o último estado da solução
-            while (it.hasNext()) {
-                lastState = it.next();
+            if (Arrays.asList(args).contains("--stats")) {
+                stats = new SearchStats();
+                s.setListener(stats);
             }
-
-            // Exibe o estado final e adiciona uma linha em branco antes do custo total
-            if (lastState != null) {
-                System.out.println(lastState.getLayout().toString().trim());
-                System.out.println(); // Linha em branco
-                System.out.println((int) lastState.getG());
+            int timeout = Arrays.asList(args).indexOf("--timeout");
+            if (timeout < 0) {
+                it = s.solve(initialContainer, goalContainer);
+            } else {
+                SearchResult result = s.solve(initialContainer, goalContainer,
+                        Duration.ofMillis(Long.parseLong(args[timeout + 1])), Long.MAX_VALUE,
+                        (bestF, expanded) -> System.err.printf("f=%d expanded=%d%n", (int) bestF, expanded),
+                        Duration.ofSeconds(1));
+                System.err.println(result);
+                if (!result.isSolved() && result.getStatus() != SearchResult.Status.NO_SOLUTION) {
+                    System.out.println("search stopped: " + result.getStatus().name().toLowerCase());
+                    sc.close();
+                    return;
+                }
+                it = result.isSolved() ? result.getPath().iterator() : null;
             }
         }
 
+        System.out.print(format(it));
+        if (stats != null) System.err.println(stats);
         sc.close();
     }
+
+    /**
+     * Resolve todos os pares (configuração inicial, configuração objetivo) lidos, um por cada duas linhas
+     * não vazias, num ForkJoinPool. Cada resultado é escrito assim que ele e todos os anteriores estão
+     * resolvidos, e o número de pares por escrever é limitado para que a entrada possa ser arbitrariamente longa.
+     *
+     * @param in A entrada com os pares de configurações.
+     * @param out A saída onde são escritos os resultados, pela ordem da entrada.
+     * @param threads O número de threads a usar.
+     * @throws Exception Lança uma exceção caso ocorra erro na leitura da entrada.
+     */
+    static void solveBatch(BufferedReader in, PrintStream out, int threads) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        SolutionCache cache = new SolutionCache(CACHE_CAPACITY);
+        ArrayDeque<CompletableFuture<String>> pending = new ArrayDeque<>();
+        try {
+            while (true) {
+                String initial = nextLine(in);
+                String goal = initial == null ? null : nextLine(in);
+                if (goal == null) break;
+
+                pending.add(CompletableFuture.supplyAsync(() -> solveOne(cache, initial, goal), pool));
+                if (pending.size() >= threads * PENDING_PER_THREAD) {
+                    out.print(pending.poll().join());
+                }
+                // Escreve os resultados já prontos sem esperar pelos restantes
+                while (!pending.isEmpty() && pending.peek().isDone()) {
+                    out.print(pending.poll().join());
+                }
+            }
+            while (!pending.isEmpty()) {
+                out.print(pending.poll().join());
+            }
+            out.flush();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Resolve um par de configurações com uma procura Best-First própria, ou a partir da cache se o par
+     * (ou um par que passe pelo mesmo estado com o mesmo objetivo) já tiver sido resolvido.
+     *
+     * @param cache A cache de soluções partilhada pelo lote.
+     * @param initial A configuração inicial.
+     * @param goal A configuração objetivo.
+     * @return O resultado formatado, ou uma linha com o erro se alguma configuração for inválida.
+     */
+    private static String solveOne(SolutionCache cache, String initial, String goal) {
+        try {
+            return format(cache.solve(new Container(initial), new Container(goal)));
+        } catch (IllegalArgumentException | IllegalStateException | IOException e) {
+            return "error: " + e.getMessage() + System.lineSeparator();
+        }
+    }
+
+    /**
+     * Lê a próxima linha não vazia da entrada.
+     *
+     * @param in A entrada.
+     * @return A linha lida, ou null no fim da entrada.
+     * @throws Exception Lança uma exceção caso ocorra erro na leitura.
+     */
+    private static String nextLine(BufferedReader in) throws Exception {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!line.trim().isEmpty()) return line;
+        }
+        return null;
+    }
+
+    /**
+     * Formata o resultado de uma procura: o estado final, uma linha em branco e o custo total,
+     * ou "no solution found" se não houver solução.
+     *
+     * @param it O iterador sobre a sequência de estados da solução, ou null.
+     * @return O texto a escrever.
+     */
+    private static String format(Iterator<BestFirst.State> it) {
+        String nl = System.lineSeparator();
+        if (it == null) {
+            return "no solution found" + nl;
+        }
+        BestFirst.State lastState = null;
+
+        // Percorre até o último estado da solução
+        while (it.hasNext()) {
+            lastState = it.next();
+        }
+
+        // Exibe o estado final e adiciona uma linha em branco antes do custo total
+        if (lastState == null) return "";
+        return lastState.getLayout().toString().trim() + nl + nl + (int) lastState.getG() + nl;
+    }
 }
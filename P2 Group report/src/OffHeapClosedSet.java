@@ -0,0 +1,280 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Conjunto de estados fechados guardado fora do heap, para instâncias em que os estados fechados não cabem
+ * em memória como objetos.
+ * Cada estado é representado apenas pela chave do seu layout (Ilayout.key()), pela chave do pai, pelo movimento
+ * que o gerou e pelo custo g, numa tabela de endereçamento aberto com sondagem linear dividida em páginas de
+ * ByteBuffers diretos. O caminho até um estado é reconstruído seguindo as chaves dos pais e voltando a aplicar
+ * os movimentos a partir da raiz, pelo que os layouts não precisam de ser guardados.
+ * Um filtro de Bloom guardado num array de longs responde à maioria das procuras de estados que nunca foram
+ * fechados sem tocar na tabela.
+ * A memória direta da JVM está limitada por -XX:MaxDirectMemorySize, que por omissão é igual ao -Xmx, pelo
+ * que para guardar mais estados do que cabem no heap é preciso aumentar esse limite (por exemplo,
+ * java -Xmx1g -XX:MaxDirectMemorySize=16g). As páginas antigas só são libertadas pelo coletor de lixo depois
+ * de a tabela crescer, e por isso, durante o crescimento, a tabela ocupa até três vezes o seu tamanho anterior.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ * @inv A tabela tem sempre uma capacidade potência de 2 e nunca fica mais do que meio cheia; todas as chaves
+ *      guardadas estão marcadas no filtro de Bloom.
+ */
+class OffHeapClosedSet {
+    private static final int ENTRY_BYTES = 32;
+    private static final int KEY = 0;
+    private static final int PARENT = 8;
+    private static final int G = 16;
+    private static final int MOVE = 24;
+    private static final int USED = 28;
+    private static final int PAGE_SHIFT = 16;
+    private static final int PAGE_ENTRIES = 1 << PAGE_SHIFT;
+    private static final int MIN_CAPACITY = 1 << 10;
+    private static final int BLOOM_HASHES = 3;
+    private static final int BLOOM_BITS_PER_ENTRY = 4; // Bits do filtro por posição da tabela (8 por estado, no máximo)
+
+    private ByteBuffer[] pages;
+    private long mask;
+    private long size;
+    private long[] bloom;
+    private int bloomMask;
+
+    /**
+     * Construtor que cria um conjunto vazio.
+     */
+    public OffHeapClosedSet() {
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * Retorna o número de estados guardados.
+     *
+     * @return O número de estados.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Verifica se um estado está no conjunto.
+     *
+     * @param key A chave do layout.
+     * @return true se o estado tiver sido guardado.
+     */
+    public boolean contains(long key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Retorna o custo com que um estado foi fechado.
+     *
+     * @param key A chave do layout.
+     * @return O custo g, ou infinito se o estado não estiver no conjunto.
+     */
+    public double g(long key) {
+        long slot = find(key);
+        return slot < 0 ? Double.POSITIVE_INFINITY : page(slot).getDouble(offset(slot) + G);
+    }
+
+    /**
+     * Retorna a chave do pai de um estado.
+     *
+     * @param key A chave do layout, que tem de estar no conjunto.
+     * @return A chave do layout pai.
+     * @throws IllegalArgumentException Se o estado não estiver no conjunto.
+     */
+    public long parent(long key) {
+        long slot = require(key);
+        return page(slot).getLong(offset(slot) + PARENT);
+    }
+
+    /**
+     * Retorna o movimento que gerou um estado a partir do seu pai.
+     *
+     * @param key A chave do layout, que tem de estar no conjunto.
+     * @return O identificador do movimento (Ilayout.forEachMove()), ou -1 na raiz.
+     * @throws IllegalArgumentException Se o estado não estiver no conjunto.
+     */
+    public int move(long key) {
+        long slot = require(key);
+        return page(slot).getInt(offset(slot) + MOVE);
+    }
+
+    /**
+     * Guarda um estado, substituindo o pai, o movimento e o custo se o estado já existir.
+     *
+     * @param key A chave do layout.
+     * @param parent A chave do layout pai (ignorada na raiz).
+     * @param move O movimento que gerou o estado, ou -1 na raiz.
+     * @param g O custo do caminho até ao estado.
+     */
+    public void put(long key, long parent, int move, double g) {
+        long mixed = mix(key);
+        long slot = mixed & mask;
+        while (true) {
+            ByteBuffer page = page(slot);
+            int offset = offset(slot);
+            if (page.getInt(offset + USED) == 0) {
+                page.putLong(offset + KEY, key);
+                page.putInt(offset + USED, 1);
+                size++;
+                mark(mixed);
+                write(page, offset, parent, move, g);
+                if (size * 2 > mask + 1) grow();
+                return;
+            }
+            if (page.getLong(offset + KEY) == key) {
+                write(page, offset, parent, move, g);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Escreve o pai, o custo e o movimento de uma posição da tabela.
+     *
+     * @param page A página da posição.
+     * @param offset O início da posição na página.
+     * @param parent A chave do layout pai.
+     * @param move O movimento que gerou o estado.
+     * @param g O custo do caminho até ao estado.
+     */
+    private static void write(ByteBuffer page, int offset, long parent, int move, double g) {
+        page.putLong(offset + PARENT, parent);
+        page.putDouble(offset + G, g);
+        page.putInt(offset + MOVE, move);
+    }
+
+    /**
+     * Procura a posição de um estado na tabela, consultando primeiro o filtro de Bloom.
+     *
+     * @param key A chave do layout.
+     * @return A posição do estado, ou -1 se não estiver no conjunto.
+     */
+    private long find(long key) {
+        long mixed = mix(key);
+        if (!mightContain(mixed)) return -1;
+        long slot = mixed & mask;
+        while (true) {
+            ByteBuffer page = page(slot);
+            int offset = offset(slot);
+            if (page.getInt(offset + USED) == 0) return -1;
+            if (page.getLong(offset + KEY) == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Procura a posição de um estado que tem de estar no conjunto.
+     *
+     * @param key A chave do layout.
+     * @return A posição do estado.
+     * @throws IllegalArgumentException Se o estado não estiver no conjunto.
+     */
+    private long require(long key) {
+        long slot = find(key);
+        if (slot < 0) throw new IllegalArgumentException("Estado não fechado: " + key);
+        return slot;
+    }
+
+    /**
+     * Retorna a página que contém uma posição da tabela.
+     *
+     * @param slot A posição.
+     * @return A página.
+     */
+    private ByteBuffer page(long slot) {
+        return pages[(int) (slot >>> PAGE_SHIFT)];
+    }
+
+    /**
+     * Retorna o início de uma posição da tabela dentro da sua página.
+     *
+     * @param slot A posição.
+     * @return O deslocamento em bytes.
+     */
+    private static int offset(long slot) {
+        return (int) (slot & (PAGE_ENTRIES - 1)) * ENTRY_BYTES;
+    }
+
+    /**
+     * Mistura os bits da chave (finalizador do MurmurHash3), para que chaves parecidas fiquem espalhadas
+     * pela tabela e pelo filtro.
+     *
+     * @param key A chave.
+     * @return A chave misturada.
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        return key ^ (key >>> 33);
+    }
+
+    /**
+     * Marca uma chave no filtro de Bloom, usando BLOOM_HASHES posições derivadas das duas metades da chave misturada.
+     *
+     * @param mixed A chave misturada.
+     */
+    private void mark(long mixed) {
+        int h1 = (int) (mixed >>> 32);
+        int h2 = (int) mixed | 1;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = (h1 + i * h2) & bloomMask;
+            bloom[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Consulta o filtro de Bloom.
+     *
+     * @param mixed A chave misturada.
+     * @return false se a chave nunca foi guardada; true se pode ter sido.
+     */
+    private boolean mightContain(long mixed) {
+        int h1 = (int) (mixed >>> 32);
+        int h2 = (int) mixed | 1;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = (h1 + i * h2) & bloomMask;
+            if ((bloom[bit >>> 6] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Cria uma tabela e um filtro vazios com a capacidade dada.
+     *
+     * @param capacity O número de posições da tabela (potência de 2).
+     */
+    private void allocate(long capacity) {
+        int pageCount = (int) Math.max(1, capacity >>> PAGE_SHIFT);
+        int pageBytes = (int) Math.min(capacity, PAGE_ENTRIES) * ENTRY_BYTES;
+        pages = new ByteBuffer[pageCount];
+        for (int i = 0; i < pageCount; i++) pages[i] = ByteBuffer.allocateDirect(pageBytes);
+        mask = capacity - 1;
+        size = 0;
+
+        long bits = Math.min(capacity * BLOOM_BITS_PER_ENTRY, 1L << 31);
+        bloom = new long[(int) (bits >>> 6)];
+        bloomMask = (int) (bits - 1);
+    }
+
+    /**
+     * Duplica a capacidade da tabela e volta a inserir todos os estados, reconstruindo o filtro de Bloom.
+     */
+    private void grow() {
+        ByteBuffer[] old = pages;
+        long oldCapacity = mask + 1;
+        allocate(oldCapacity * 2);
+        for (long slot = 0; slot < oldCapacity; slot++) {
+            ByteBuffer page = old[(int) (slot >>> PAGE_SHIFT)];
+            int offset = offset(slot);
+            if (page.getInt(offset + USED) == 0) continue;
+            put(page.getLong(offset + KEY), page.getLong(offset + PARENT), page.getInt(offset + MOVE),
+                    page.getDouble(offset + G));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+
+/**
+ * Testes do conjunto de estados fechados fora do heap. São guardados estados suficientes para a tabela
+ * crescer várias vezes e passar a ter várias páginas, e todos têm de continuar a ser encontrados: como
+ * cada procura passa primeiro pelo filtro de Bloom, um falso negativo do filtro seria um estado perdido.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ */
+class OffHeapClosedSetTest {
+    private static final int STATES = 200_000;
+
+    @Test
+    void testEstadosSobrevivemAoCrescimento() {
+        OffHeapClosedSet closed = new OffHeapClosedSet();
+        Random random = new Random(21);
+        long[] keys = new long[STATES];
+        Set<Long> distinct = new HashSet<>();
+        for (int i = 0; i < STATES; i++) {
+            do {
+                keys[i] = random.nextLong();
+            } while (!distinct.add(keys[i]));
+            closed.put(keys[i], i == 0 ? 0 : keys[i - 1], i == 0 ? -1 : i % 50, i);
+        }
+
+        assertEquals(STATES, closed.size());
+        for (int i = 0; i < STATES; i++) {
+            assertTrue(closed.contains(keys[i]), "Estado perdido: " + keys[i]);
+            assertEquals(i, closed.g(keys[i]));
+            assertEquals(i == 0 ? -1 : i % 50, closed.move(keys[i]));
+            if (i > 0) assertEquals(keys[i - 1], closed.parent(keys[i]));
+        }
+    }
+
+    @Test
+    void testEstadosAusentes() {
+        OffHeapClosedSet closed = new OffHeapClosedSet();
+        for (long key = 0; key < 5_000; key++) closed.put(key * 2, 0, 0, key);
+        for (long key = 0; key < 5_000; key++) {
+            assertFalse(closed.contains(key * 2 + 1));
+            assertEquals(Double.POSITIVE_INFINITY, closed.g(key * 2 + 1));
+        }
+        assertThrows(IllegalArgumentException.class, () -> closed.parent(1));
+    }
+
+    @Test
+    void testSubstituiEstadoExistente() {
+        OffHeapClosedSet closed = new OffHeapClosedSet();
+        closed.put(42, 1, 3, 10.0);
+        closed.put(42, 7, 5, 4.0);
+        assertEquals(1, closed.size());
+        assertEquals(4.0, closed.g(42));
+        assertEquals(7, closed.parent(42));
+        assertEquals(5, closed.move(42));
+    }
+}
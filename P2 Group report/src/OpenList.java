@@ -0,0 +1,41 @@
+/**
+ * Interface que define a lista de abertos usada pelo algoritmo Best-First.
+ * Os estados são retirados por ordem crescente de f(n) e, em caso de empate, pelo maior custo g,
+ * que corresponde ao estado mais perto do objetivo.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ * @inv poll() retorna sempre um estado com o menor f entre os abertos e, entre esses, com o maior g.
+ */
+interface OpenList {
+
+    /**
+     * Adiciona um estado à lista de abertos.
+     *
+     * @param state O estado a adicionar.
+     */
+    void add(BestFirst.State state);
+
+    /**
+     * Remove e retorna o estado de menor f, com o maior g em caso de empate.
+     *
+     * @return O estado removido, ou null se a lista estiver vazia.
+     */
+    BestFirst.State poll();
+
+    /**
+     * Verifica se a lista de abertos está vazia.
+     *
+     * @return true se não houver estados abertos; caso contrário, false.
+     */
+    boolean isEmpty();
+
+    /**
+     * Retorna o número de estados abertos.
+     *
+     * @return O número de estados na lista.
+     */
+    int size();
+}
@@ -0,0 +1,287 @@
+import java.util.*;
+
+/**
+ * Classe que implementa uma procura A* com memória limitada (SMA*, Simplified Memory-bounded A*).
+ * A procura mantém em memória uma árvore com, no máximo, o número de nós indicado. Quando esse limite
+ * é ultrapassado, esquece a folha com maior f e guarda esse valor no pai, que volta a ser expandido
+ * mais tarde se os filhos esquecidos voltarem a ser os mais promissores. O f de cada nó expandido é
+ * atualizado para o menor f dos seus filhos (incluindo os esquecidos), pelo que o trabalho feito
+ * antes de esquecer um ramo não se perde por completo.
+ * Cada layout aparece no máximo uma vez em memória: um sucessor já em memória com custo igual ou menor
+ * é ignorado, e um sucessor que melhora um nó em memória substitui-o, esquecendo a subárvore do antigo.
+ * Sem isto, os ciclos de custo 0 (contentores de custo 0) fariam a procura gerar o mesmo estado
+ * indefinidamente.
+ * Cada nó guarda também o f de cada filho esquecido, e um filho gerado de novo nunca fica com f menor do
+ * que o que tinha quando foi esquecido. Assim, um ramo que já se sabe não caber na memória (f infinito)
+ * não volta a parecer promissor, e a procura termina sem solução quando o limite é pequeno demais.
+ * Para heurísticas admissíveis, a solução devolvida é ótima sempre que o caminho ótimo, com os irmãos
+ * dos nós que o compõem, cabe no limite de memória; caso contrário a procura gasta mais tempo, mas não
+ * esgota a memória.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ * @inv count é o número de nós em memória e nunca é maior do que maxNodes depois de uma expansão;
+ *      abertos contém os nós por expandir e os nós com filhos esquecidos de f finito, e folhas contém
+ *      os nós sem filhos em memória; known contém, para cada layout em memória, o único nó com esse layout;
+ *      forgotten é o menor valor de forgottenChildren, ou infinito se estiver vazio.
+ * @see https://en.wikipedia.org/wiki/SMA*
+ */
+class SMAStar {
+    private final int maxNodes;
+    private Ilayout objective;
+    private TreeSet<Node> abertos;
+    private TreeSet<Node> folhas;
+    private Map<Long, Node> known;
+    private int count;
+    private long nextId;
+
+    /**
+     * Nó da árvore de procura em memória.
+     */
+    private static final class Node {
+        private final Ilayout layout;
+        private final long key;
+        private final Node father;
+        private final double g;
+        private final int depth;
+        private final long id;
+        private final List<Node> children = new ArrayList<>();
+        private double f;
+        private double forgotten = Double.POSITIVE_INFINITY;
+        private Map<Long, Double> forgottenChildren; // f de cada filho esquecido, pela chave do layout
+        private boolean expanded;
+
+        private Node(Ilayout layout, Node father, double g, double f, long id) {
+            this.layout = layout;
+            this.key = layout.key();
+            this.father = father;
+            this.g = g;
+            this.f = f;
+            this.depth = father == null ? 0 : father.depth + 1;
+            this.id = id;
+        }
+
+        /**
+         * Prioridade do nó na lista de abertos: o seu f se ainda não foi expandido, ou o menor f
+         * dos filhos esquecidos se já foi.
+         *
+         * @return A prioridade do nó.
+         */
+        private double key() {
+            return expanded ? forgotten : f;
+        }
+    }
+
+    /**
+     * Construtor que cria uma procura limitada a um número máximo de nós em memória.
+     *
+     * @param maxNodes O número máximo de nós em memória.
+     * @throws IllegalArgumentException Se o limite for menor do que 2.
+     */
+    public SMAStar(int maxNodes) {
+        if (maxNodes < 2) throw new IllegalArgumentException("Limite de nós inválido: " + maxNodes);
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Resolve o problema a partir de um layout inicial até um layout objetivo sem guardar mais
+     * do que maxNodes nós.
+     *
+     * @param s O layout inicial.
+     * @param goal O layout objetivo.
+     * @return Um iterador sobre a sequência de estados que leva à solução, ou null se não houver
+     *         solução que caiba no limite de memória.
+     */
+    public Iterator<BestFirst.State> solve(Ilayout s, Ilayout goal) {
+        objective = goal;
+        // Abertos: menor prioridade primeiro e, em caso de empate, o nó mais profundo e mais recente
+        abertos = new TreeSet<>((n1, n2) -> {
+            int c = Double.compare(n1.key(), n2.key());
+            if (c != 0) return c;
+            c = Integer.compare(n2.depth, n1.depth);
+            return c != 0 ? c : Long.compare(n2.id, n1.id);
+        });
+        // Folhas: a última é a de maior f e, em caso de empate, a menos profunda e mais antiga
+        folhas = new TreeSet<>((n1, n2) -> {
+            int c = Double.compare(n1.f, n2.f);
+            if (c != 0) return c;
+            c = Integer.compare(n2.depth, n1.depth);
+            return c != 0 ? c : Long.compare(n2.id, n1.id);
+        });
+        known = new HashMap<>();
+        nextId = 0;
+
+        Node root = new Node(s, null, 0.0, s.heuristic(objective), nextId++);
+        known.put(root.key, root);
+        count = 1;
+        abertos.add(root);
+        folhas.add(root);
+
+        while (!abertos.isEmpty()) {
+            Node n = abertos.first();
+            if (n.key() == Double.POSITIVE_INFINITY) return null;
+            if (!n.expanded && n.layout.isGoal(objective)) return solutionPath(n);
+
+            abertos.remove(n);
+            folhas.remove(n);
+            expand(n);
+            while (count > maxNodes && forgetWorstLeaf()) {
+                // Esquece folhas até voltar ao limite de memória
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gera os filhos de um nó cujo layout não está em memória com custo igual ou menor (o que inclui
+     * os layouts do caminho desde a raiz e os filhos que o nó já tem em memória), substitui os nós
+     * em memória que o filho melhora e atualiza o f do nó e dos seus antecessores.
+     *
+     * @param n O nó a expandir, já retirado de abertos e folhas.
+     */
+    private void expand(Node n) {
+        n.expanded = true;
+        n.forgotten = Double.POSITIVE_INFINITY;
+        Map<Long, Double> remembered = n.forgottenChildren;
+        n.forgottenChildren = null;
+
+        for (Ilayout e : n.layout.children()) {
+            double g = n.g + e.getK();
+            Node old = known.get(e.key());
+            if (old != null) {
+                if (old.g <= g) continue;
+                // O antecessor de n nunca é substituído, porque tem custo menor ou igual ao de n
+                discard(old);
+            }
+            double f = Math.max(n.f, g + e.heuristic(objective));
+            if (remembered != null) f = Math.max(f, remembered.getOrDefault(e.key(), f));
+            // Um nó a esta profundidade não deixa espaço para os seus filhos
+            if (n.depth + 1 >= maxNodes - 1 && !e.isGoal(objective)) f = Double.POSITIVE_INFINITY;
+            Node child = new Node(e, n, g, f, nextId++);
+            known.put(child.key, child);
+            n.children.add(child);
+            abertos.add(child);
+            folhas.add(child);
+            count++;
+        }
+
+        if (n.children.isEmpty()) {
+            n.f = Double.POSITIVE_INFINITY;
+            folhas.add(n);
+        } else {
+            backup(n);
+        }
+    }
+
+    /**
+     * Retira da memória um nó que foi alcançado por um caminho melhor, com toda a sua subárvore.
+     * Ao contrário de forgetWorstLeaf(), o f do nó não é guardado no pai, porque o seu layout continua
+     * representado pelo novo nó; o pai passa a folha se ficar sem filhos.
+     *
+     * @param old O nó a retirar, que não é a raiz nem antecessor do nó em expansão.
+     */
+    private void discard(Node old) {
+        Node p = old.father;
+        abertos.remove(p);
+        p.children.remove(old);
+        removeSubtree(old);
+        if (p.children.isEmpty()) {
+            p.f = p.forgotten;
+            folhas.add(p);
+        } else {
+            backup(p);
+        }
+        if (p.forgotten < Double.POSITIVE_INFINITY) abertos.add(p);
+    }
+
+    /**
+     * Retira um nó e todos os seus descendentes de abertos, folhas e known.
+     *
+     * @param node A raiz da subárvore.
+     */
+    private void removeSubtree(Node node) {
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(node);
+        while (!stack.isEmpty()) {
+            Node m = stack.pop();
+            abertos.remove(m);
+            folhas.remove(m);
+            known.remove(m.key, m);
+            count--;
+            for (Node c : m.children) stack.push(c);
+        }
+    }
+
+    /**
+     * Atualiza o f de um nó expandido para o menor f dos seus filhos, incluindo os esquecidos,
+     * e propaga a alteração aos antecessores. Os nós expandidos com filhos em memória não estão em
+     * folhas e a sua prioridade em abertos não depende de f, por isso não é preciso reordená-los.
+     *
+     * @param n O nó expandido.
+     */
+    private void backup(Node n) {
+        while (n != null && !n.children.isEmpty()) {
+            double best = n.forgotten;
+            for (Node c : n.children) best = Math.min(best, c.f);
+            if (best == n.f) return;
+            n.f = best;
+            n = n.father;
+        }
+    }
+
+    /**
+     * Esquece a folha com maior f, guardando o seu f no pai para que este possa voltar a gerá-la sem
+     * perder o que já se sabia sobre ela.
+     * A raiz nunca é esquecida.
+     *
+     * @return true se uma folha foi esquecida; false se só resta a raiz.
+     */
+    private boolean forgetWorstLeaf() {
+        Node m = folhas.last();
+        if (m.father == null) {
+            m = folhas.lower(m);
+            if (m == null) return false;
+        }
+        folhas.remove(m);
+        abertos.remove(m);
+        known.remove(m.key, m);
+        count--;
+
+        Node p = m.father;
+        abertos.remove(p);
+        p.children.remove(m);
+        p.forgotten = Math.min(p.forgotten, m.f);
+        if (p.forgottenChildren == null) p.forgottenChildren = new HashMap<>();
+        p.forgottenChildren.merge(m.key, m.f, Math::max);
+        if (p.children.isEmpty()) {
+            p.f = p.forgotten;
+            folhas.add(p);
+        } else {
+            backup(p);
+        }
+        if (p.forgotten < Double.POSITIVE_INFINITY) abertos.add(p);
+        return true;
+    }
+
+    /**
+     * Reconstrói a sequência de estados desde a raiz até um nó.
+     *
+     * @param n O nó objetivo.
+     * @return Um iterador sobre a sequência de estados.
+     */
+    private Iterator<BestFirst.State> solutionPath(Node n) {
+        List<Node> nodes = new ArrayList<>();
+        for (Node a = n; a != null; a = a.father) nodes.add(a);
+        Collections.reverse(nodes);
+
+        List<BestFirst.State> solutionPath = new ArrayList<>(nodes.size());
+        BestFirst.State state = null;
+        for (Node a : nodes) {
+            state = new BestFirst.State(a.layout, state, a.f - a.g);
+            solutionPath.add(state);
+        }
+        return solutionPath.iterator();
+    }
+}
@@ -0,0 +1,49 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+
+/**
+ * Testes do SMA*: com memória suficiente o custo tem de ser o da procura Best-First, e com memória a menos
+ * a procura tem de terminar, sem solução ou com uma solução ótima.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ */
+class SMAStarTest {
+
+    @Test
+    void testCustoOtimoComMemoriaSuficiente() {
+        Random random = new Random(14);
+        for (int instance = 0; instance < 30; instance++) {
+            Container start = new Container(TestInstances.randomConfig(random, 6, true));
+            Container goal = new Container(TestInstances.randomConfig(random, 6, false));
+            double expected = TestInstances.cost(new BestFirst().solve(start, goal), goal);
+            for (int maxNodes : new int[]{50, 100_000}) {
+                assertEquals(expected, TestInstances.cost(new SMAStar(maxNodes).solve(start, goal), goal),
+                        start.canonical() + " com " + maxNodes + " nós");
+            }
+        }
+    }
+
+    @Test
+    @Timeout(60)
+    void testMemoriaInsuficiente() {
+        Random random = new Random(41);
+        for (int instance = 0; instance < 30; instance++) {
+            Container start = new Container(TestInstances.randomConfig(random, 6, true));
+            Container goal = new Container(TestInstances.randomConfig(random, 6, false));
+            double expected = TestInstances.cost(new BestFirst().solve(start, goal), goal);
+            for (int maxNodes = 2; maxNodes <= 6; maxNodes++) {
+                Iterator<BestFirst.State> it = new SMAStar(maxNodes).solve(start, goal);
+                if (it != null) assertEquals(expected, TestInstances.cost(it, goal), start.canonical());
+            }
+        }
+        // Com dois nós só cabe a raiz e um filho, pelo que uma solução de dois movimentos não cabe
+        assertNull(new SMAStar(2).solve(new Container("A1B1C1"), new Container("C B A")));
+        assertEquals(1.0, TestInstances.cost(new SMAStar(2).solve(new Container("A1B1"), new Container("A B")),
+                new Container("A B")));
+    }
+}
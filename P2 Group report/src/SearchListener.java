@@ -0,0 +1,73 @@
+/**
+ * Interface que recebe os eventos de uma procura Best-First, para medir o seu comportamento.
+ * Todos os métodos têm uma implementação vazia por omissão, pelo que cada implementação só
+ * precisa de tratar os eventos que lhe interessam. Quando a procura não tem nenhum listener,
+ * os eventos não são gerados e os tempos não são medidos.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ */
+interface SearchListener {
+
+    /**
+     * Chamado no início da procura, antes de o estado inicial ser aberto.
+     */
+    default void searchStarted() {
+    }
+
+    /**
+     * Chamado quando um estado é retirado da lista de abertos para ser expandido.
+     *
+     * @param state O estado expandido.
+     * @param openSize O número de outros estados abertos.
+     * @param closedSize O número de estados fechados, sem contar com este.
+     */
+    default void stateExpanded(BestFirst.State state, int openSize, int closedSize) {
+    }
+
+    /**
+     * Chamado para cada sucessor gerado, isto é, criado e aberto por não existir um caminho tão bom ou
+     * melhor para o seu layout. É a mesma definição de SearchResult.getGenerated().
+     *
+     * @param state O estado gerado.
+     */
+    default void stateGenerated(BestFirst.State state) {
+    }
+
+    /**
+     * Chamado quando um sucessor é descartado por já existir um caminho tão bom ou melhor para o seu layout.
+     * O sucessor é descartado antes de o seu layout ser criado, pelo que só são conhecidos a chave e o custo.
+     *
+     * @param key A chave do layout descartado.
+     * @param g O custo do caminho descartado.
+     */
+    default void duplicateDetected(long key, double g) {
+    }
+
+    /**
+     * Chamado depois de cada expansão com o tempo gasto a gerar os sucessores (forEachMove() e applyMove()),
+     * sem contar com o cálculo da heurística.
+     *
+     * @param nanos O tempo gasto, em nanossegundos.
+     */
+    default void childrenTime(long nanos) {
+    }
+
+    /**
+     * Chamado depois de cada expansão com o tempo gasto a calcular a heurística dos sucessores abertos.
+     *
+     * @param nanos O tempo gasto, em nanossegundos.
+     */
+    default void heuristicTime(long nanos) {
+    }
+
+    /**
+     * Chamado no fim da procura.
+     *
+     * @param solution O estado objetivo alcançado, ou null se não houver solução.
+     */
+    default void searchFinished(BestFirst.State solution) {
+    }
+}
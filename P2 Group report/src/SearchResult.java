@@ -0,0 +1,121 @@
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Resultado de uma procura Best-First com limites: o motivo pelo qual a procura terminou, o caminho
+ * da solução (se foi encontrada) e as estatísticas da procura até esse momento.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ * @inv path só não é null quando status é SOLVED.
+ */
+class SearchResult {
+
+    /**
+     * Motivo pelo qual a procura terminou.
+     */
+    enum Status {
+        /** Foi encontrada uma solução. */
+        SOLVED,
+        /** Todos os estados alcançáveis foram expandidos sem encontrar o objetivo. */
+        NO_SOLUTION,
+        /** O tempo limite acabou antes de a procura terminar. */
+        TIMED_OUT,
+        /** Foi expandido o número máximo de estados antes de a procura terminar. */
+        NODE_LIMIT,
+        /** A thread da procura foi interrompida. */
+        INTERRUPTED
+    }
+
+    private final Status status;
+    private final List<BestFirst.State> path;
+    private final long expanded;
+    private final long generated;
+    private final double bestF;
+    private final long elapsedNanos;
+
+    /**
+     * Construtor que cria o resultado de uma procura.
+     *
+     * @param status O motivo pelo qual a procura terminou.
+     * @param path A sequência de estados da solução, ou null se não foi encontrada.
+     * @param expanded O número de estados expandidos.
+     * @param generated O número de sucessores abertos, sem contar com o estado inicial
+     *                  (a mesma definição de SearchListener.stateGenerated()).
+     * @param bestF O maior f dos estados retirados da lista de abertos.
+     * @param elapsedNanos O tempo gasto pela procura, em nanossegundos.
+     */
+    SearchResult(Status status, List<BestFirst.State> path, long expanded, long generated, double bestF,
+                 long elapsedNanos) {
+        this.status = status;
+        this.path = path == null ? null : Collections.unmodifiableList(path);
+        this.expanded = expanded;
+        this.generated = generated;
+        this.bestF = bestF;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSolved() {
+        return status == Status.SOLVED;
+    }
+
+    /**
+     * Retorna o caminho da solução.
+     *
+     * @return A sequência de estados desde o layout inicial até ao objetivo, ou null se a procura
+     *         não encontrou solução.
+     */
+    public List<BestFirst.State> getPath() {
+        return path;
+    }
+
+    /**
+     * Retorna o custo da solução.
+     *
+     * @return O custo do caminho, ou NaN se a procura não encontrou solução.
+     */
+    public double getCost() {
+        return path == null ? Double.NaN : path.get(path.size() - 1).getG();
+    }
+
+    public long getExpanded() {
+        return expanded;
+    }
+
+    public long getGenerated() {
+        return generated;
+    }
+
+    /**
+     * Retorna o maior f dos estados retirados da lista de abertos. Para heurísticas consistentes,
+     * é um limite inferior do custo de qualquer solução ainda por encontrar.
+     *
+     * @return O maior f, ou 0 se nenhum estado foi retirado.
+     */
+    public double getBestF() {
+        return bestF;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Retorna uma linha com o estado e as estatísticas da procura, no formato chave=valor.
+     *
+     * @return O resumo do resultado.
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "status=%s cost=%s bestF=%s expanded=%d generated=%d time=%.1fms",
+                status.name().toLowerCase(Locale.ROOT), isSolved() ? String.valueOf((int) getCost()) : "none",
+                String.valueOf((int) bestF), expanded, generated, elapsedNanos / 1e6);
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Listener que acumula as métricas de uma procura: estados expandidos e gerados, duplicados
+ * descartados, tamanho máximo das listas de abertos e fechados, estados expandidos por segundo
+ * e tempo gasto a gerar sucessores e a calcular a heurística.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ */
+class SearchStats implements SearchListener {
+    private long expanded;
+    private long generated;
+    private long duplicates;
+    private int peakOpen;
+    private int peakClosed;
+    private long childrenNanos;
+    private long heuristicNanos;
+    private long startNanos;
+    private long elapsedNanos;
+    private double solutionCost = Double.NaN;
+
+    @Override
+    public void searchStarted() {
+        startNanos = System.nanoTime();
+    }
+
+    @Override
+    public void stateExpanded(BestFirst.State state, int openSize, int closedSize) {
+        expanded++;
+        peakOpen = Math.max(peakOpen, openSize);
+        peakClosed = Math.max(peakClosed, closedSize);
+    }
+
+    @Override
+    public void stateGenerated(BestFirst.State state) {
+        generated++;
+    }
+
+    @Override
+    public void duplicateDetected(long key, double g) {
+        duplicates++;
+    }
+
+    @Override
+    public void childrenTime(long nanos) {
+        childrenNanos += nanos;
+    }
+
+    @Override
+    public void heuristicTime(long nanos) {
+        heuristicNanos += nanos;
+    }
+
+    @Override
+    public void searchFinished(BestFirst.State solution) {
+        elapsedNanos = System.nanoTime() - startNanos;
+        if (solution != null) solutionCost = solution.getG();
+    }
+
+    public long getExpanded() {
+        return expanded;
+    }
+
+    public long getGenerated() {
+        return generated;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public int getPeakOpen() {
+        return peakOpen;
+    }
+
+    public int getPeakClosed() {
+        return peakClosed;
+    }
+
+    public long getChildrenNanos() {
+        return childrenNanos;
+    }
+
+    public long getHeuristicNanos() {
+        return heuristicNanos;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Retorna o número de estados expandidos por segundo durante a procura.
+     *
+     * @return Os estados expandidos por segundo, ou 0 se a procura ainda não terminou.
+     */
+    public double getExpandedPerSecond() {
+        return elapsedNanos == 0 ? 0 : expanded * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Retorna uma linha com todas as métricas, no formato chave=valor.
+     *
+     * @return O resumo das métricas.
+     */
+    @Override
+    public String toString() {
+        return String.format(java.util.Locale.ROOT,
+                "cost=%s expanded=%d generated=%d duplicates=%d peakOpen=%d peakClosed=%d "
+                        + "time=%.1fms expanded/s=%.0f children=%.1fms heuristic=%.1fms",
+                Double.isNaN(solutionCost) ? "none" : String.valueOf((int) solutionCost),
+                expanded, generated, duplicates, peakOpen, peakClosed,
+                elapsedNanos / 1e6, getExpandedPerSecond(), childrenNanos / 1e6, heuristicNanos / 1e6);
+    }
+}
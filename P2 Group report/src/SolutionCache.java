@@ -0,0 +1,375 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Cache de soluções à frente da procura Best-First, identificadas pela forma canónica do contêiner inicial
+ * e do contêiner objetivo. Cada solução é guardada como a sequência de movimentos de forEachMove() que a
+ * compõe, e é reconstruída a partir do contêiner pedido com applyMove().
+ * Como qualquer parte de um caminho ótimo é também ótima, cada solução responde ainda aos pedidos que
+ * partem de qualquer estado do caminho para o mesmo objetivo.
+ * As soluções mais usadas ficam numa cache LRU em memória. Opcionalmente, todas as soluções são também
+ * acrescentadas a um ficheiro que sobrevive entre execuções: ao abrir a cache, o ficheiro é mapeado em
+ * memória e percorrido uma vez para construir o índice da posição de cada par (inicial, objetivo), e as
+ * soluções que não estão na LRU são lidas diretamente do mapeamento.
+ * Os métodos podem ser chamados por várias threads; a procura em si é feita fora do lock.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ * @inv Cada registo do ficheiro tem o contêiner inicial, o objetivo e os movimentos da solução, e o índice
+ *      associa a cada par conhecido a posição do registo e o número de movimentos a saltar.
+ */
+class SolutionCache implements Closeable {
+    private static final int SKIP_BITS = 16; // Bits do número de movimentos a saltar em cada posição do índice
+
+    private final LinkedHashMap<String, Entry> lru;
+    private final Map<String, Long> index = new HashMap<>();
+    private final FileChannel channel;
+    private MappedByteBuffer mapped;
+    private long size;
+    private long hits;
+    private long misses;
+
+    /**
+     * Solução guardada em memória: os movimentos a partir do estado inicial do registo, dos quais
+     * os primeiros from são saltados quando o pedido parte de um estado intermédio.
+     */
+    private static final class Entry {
+        private final int[] moves;
+        private final int from;
+
+        private Entry(int[] moves, int from) {
+            this.moves = moves;
+            this.from = from;
+        }
+    }
+
+    /**
+     * Construtor que cria uma cache apenas em memória.
+     *
+     * @param capacity O número máximo de soluções na cache LRU.
+     */
+    public SolutionCache(int capacity) {
+        this.lru = createLru(capacity);
+        this.channel = null;
+    }
+
+    /**
+     * Construtor que cria uma cache persistente, lendo as soluções já guardadas no ficheiro.
+     *
+     * @param capacity O número máximo de soluções na cache LRU.
+     * @param file O ficheiro onde as soluções são acrescentadas (criado se não existir).
+     * @throws IOException Se o ficheiro não puder ser aberto ou estiver corrompido.
+     */
+    public SolutionCache(int capacity, Path file) throws IOException {
+        this.lru = createLru(capacity);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.size = channel.size();
+        loadIndex();
+    }
+
+    /**
+     * Cria o LinkedHashMap por ordem de acesso que descarta a solução usada há mais tempo.
+     *
+     * @param capacity O número máximo de soluções.
+     * @return O mapa vazio.
+     * @throws IllegalArgumentException Se a capacidade não for positiva.
+     */
+    private static LinkedHashMap<String, Entry> createLru(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacidade inválida: " + capacity);
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Resolve o problema, respondendo a partir da cache quando o par (inicial, objetivo) já é conhecido
+     * e guardando a solução de uma nova procura Best-First caso contrário.
+     *
+     * @param s O contêiner inicial.
+     * @param goal O contêiner objetivo.
+     * @return Um iterador sobre a sequência de estados que leva à solução, ou null se não houver solução.
+     * @throws IOException Se a solução não puder ser lida ou escrita no ficheiro.
+     * @throws java.util.concurrent.CancellationException Se a thread for interrompida durante a procura;
+     *                                                    nada é guardado na cache.
+     */
+    public Iterator<BestFirst.State> solve(Container s, Container goal) throws IOException {
+        Iterator<BestFirst.State> cached = lookup(s, goal);
+        if (cached != null) return cached;
+
+        Iterator<BestFirst.State> it = new BestFirst().solve(s, goal);
+        if (it == null) return null;
+        List<BestFirst.State> path = new ArrayList<>();
+        it.forEachRemaining(path::add);
+        store(s, goal, path);
+        return path.iterator();
+    }
+
+    /**
+     * Procura a solução de um par (inicial, objetivo) na LRU e, se não estiver lá, no ficheiro.
+     *
+     * @param s O contêiner inicial.
+     * @param goal O contêiner objetivo.
+     * @return Um iterador sobre a sequência de estados da solução, ou null se o par não for conhecido.
+     * @throws IOException Se a solução não puder ser lida do ficheiro.
+     */
+    public synchronized Iterator<BestFirst.State> lookup(Container s, Container goal) throws IOException {
+        String key = key(s, goal);
+        Entry e = lru.get(key);
+        if (e == null) {
+            Long position = index.get(key);
+            if (position != null) {
+                e = read(position >>> SKIP_BITS, (int) (position & ((1 << SKIP_BITS) - 1)));
+                lru.put(key, e);
+            }
+        }
+        Iterator<BestFirst.State> it = e == null ? null : replay(s, goal, e);
+        if (it == null) misses++;
+        else hits++;
+        return it;
+    }
+
+    /**
+     * Guarda uma solução e todas as suas partes finais, na LRU e, se a cache for persistente, no ficheiro.
+     *
+     * @param s O contêiner inicial.
+     * @param goal O contêiner objetivo.
+     * @param path A sequência de estados da solução, a começar em s.
+     * @throws IOException Se a solução não puder ser escrita no ficheiro.
+     */
+    public synchronized void store(Container s, Container goal, List<BestFirst.State> path) throws IOException {
+        String goalKey = goalCanonical(s, goal);
+        String startKey = s.canonical() + "/" + goalKey;
+        // Outra thread pode ter resolvido o mesmo par entretanto
+        if (lru.containsKey(startKey) || index.containsKey(startKey)) return;
+
+        int[] moves = new int[path.size() - 1];
+        for (int i = 1; i < path.size(); i++) {
+            moves[i - 1] = moveTo(path.get(i - 1).getLayout(), path.get(i).getLayout());
+        }
+
+        long position = channel == null ? -1 : append(s.canonical(), goalKey, moves);
+        for (int i = 0; i < path.size(); i++) {
+            String key = ((Container) path.get(i).getLayout()).canonical() + "/" + goalKey;
+            // Uma solução já conhecida para um estado intermédio não é substituída
+            if (i > 0 && (lru.containsKey(key) || index.containsKey(key))) continue;
+            lru.put(key, new Entry(moves, i));
+            if (position >= 0 && i < 1 << SKIP_BITS) index.put(key, position << SKIP_BITS | i);
+        }
+    }
+
+    /**
+     * Retorna o número de pedidos respondidos pela cache.
+     *
+     * @return O número de pedidos encontrados na cache.
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * Retorna o número de pedidos que não estavam na cache.
+     *
+     * @return O número de pedidos que obrigaram a uma procura.
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * Escreve no disco as soluções acrescentadas e fecha o ficheiro.
+     *
+     * @throws IOException Se o ficheiro não puder ser fechado.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    /**
+     * Retorna a chave de um par (inicial, objetivo): as formas canónicas dos dois contêineres, com o objetivo
+     * a usar os custos do inicial, já que os custos indicados no objetivo não contam para a solução.
+     *
+     * @param s O contêiner inicial.
+     * @param goal O contêiner objetivo.
+     * @return A chave do par.
+     */
+    private static String key(Container s, Container goal) {
+        return s.canonical() + "/" + goalCanonical(s, goal);
+    }
+
+    /**
+     * Retorna a forma canónica do objetivo com os custos do contêiner inicial.
+     *
+     * @param s O contêiner inicial.
+     * @param goal O contêiner objetivo.
+     * @return A forma canónica do objetivo.
+     */
+    private static String goalCanonical(Container s, Container goal) {
+        return ((Container) s.prepareGoal(goal)).canonical();
+    }
+
+    /**
+     * Retorna o identificador do movimento que leva de um layout a outro.
+     *
+     * @param from O layout de partida.
+     * @param to O layout de chegada, filho de from.
+     * @return O identificador do movimento.
+     * @throws IllegalArgumentException Se to não for filho de from.
+     */
+    private static int moveTo(Ilayout from, Ilayout to) {
+        long target = to.key();
+        int[] found = {-1};
+        from.forEachMove((move, key, cost) -> {
+            if (found[0] < 0 && key == target && from.applyMove(move).equals(to)) found[0] = move;
+        });
+        if (found[0] < 0) throw new IllegalArgumentException("Caminho inválido: " + to + " não é filho de " + from);
+        return found[0];
+    }
+
+    /**
+     * Reconstrói uma solução a partir do contêiner pedido, confirmando que termina no objetivo.
+     *
+     * @param s O contêiner inicial.
+     * @param goal O contêiner objetivo.
+     * @param e A solução guardada.
+     * @return Um iterador sobre a sequência de estados, ou null se os movimentos não levarem ao objetivo.
+     */
+    private static Iterator<BestFirst.State> replay(Container s, Container goal, Entry e) {
+        List<BestFirst.State> path = new ArrayList<>(e.moves.length - e.from + 1);
+        BestFirst.State state = new BestFirst.State(s, null);
+        path.add(state);
+        for (int i = e.from; i < e.moves.length; i++) {
+            state = new BestFirst.State(state.getLayout().applyMove(e.moves[i]), state);
+            path.add(state);
+        }
+        return state.getLayout().isGoal(goal) ? path.iterator() : null;
+    }
+
+    /**
+     * Acrescenta uma solução ao fim do ficheiro. O ficheiro é mapeado de uma só vez e lido com posições
+     * inteiras, pelo que não cresce para lá de Integer.MAX_VALUE bytes: uma solução que já não cabe fica
+     * apenas na LRU.
+     *
+     * @param start A forma canónica do contêiner inicial.
+     * @param goal A forma canónica do contêiner objetivo.
+     * @param moves Os movimentos da solução.
+     * @return A posição do registo no ficheiro, ou -1 se o ficheiro está cheio.
+     * @throws IOException Se o registo não puder ser escrito.
+     */
+    private long append(String start, String goal, int[] moves) throws IOException {
+        byte[] startBytes = start.getBytes(StandardCharsets.UTF_8);
+        byte[] goalBytes = goal.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(12 + startBytes.length + goalBytes.length + 4 * moves.length);
+        buffer.putInt(startBytes.length).put(startBytes);
+        buffer.putInt(goalBytes.length).put(goalBytes);
+        buffer.putInt(moves.length);
+        for (int m : moves) buffer.putInt(m);
+        buffer.flip();
+        if (size + buffer.remaining() > Integer.MAX_VALUE) return -1;
+
+        long position = size;
+        while (buffer.hasRemaining()) {
+            size += channel.write(buffer, size);
+        }
+        return position;
+    }
+
+    /**
+     * Lê os movimentos de um registo a partir do mapeamento do ficheiro, voltando a mapeá-lo se o registo
+     * tiver sido acrescentado depois do último mapeamento.
+     *
+     * @param position A posição do registo.
+     * @param from O número de movimentos a saltar.
+     * @return A solução guardada.
+     * @throws IOException Se o ficheiro não puder ser mapeado.
+     */
+    private Entry read(long position, int from) throws IOException {
+        if (mapped == null || position >= mapped.capacity()) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        ByteBuffer record = mapped.duplicate();
+        record.position((int) position);
+        skipString(record);
+        skipString(record);
+        int[] moves = new int[record.getInt()];
+        for (int i = 0; i < moves.length; i++) moves[i] = record.getInt();
+        return new Entry(moves, from);
+    }
+
+    /**
+     * Mapeia o ficheiro e percorre todos os registos, indexando cada par (estado do caminho, objetivo).
+     * Os estados intermédios são obtidos aplicando os movimentos ao contêiner inicial do registo.
+     * Um registo incompleto no fim do ficheiro, deixado por uma execução interrompida, é descartado.
+     *
+     * @throws IOException Se o ficheiro estiver corrompido.
+     */
+    private void loadIndex() throws IOException {
+        if (size == 0) return;
+        if (size > Integer.MAX_VALUE) throw new IOException("Ficheiro de soluções demasiado grande");
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        ByteBuffer records = mapped.duplicate();
+        long position = 0;
+        try {
+            while (records.hasRemaining()) {
+                position = records.position();
+                Ilayout layout = new Container(readString(records));
+                String goalKey = readString(records);
+                int count = records.getInt();
+                for (int i = 0; i <= count; i++) {
+                    String key = ((Container) layout).canonical() + "/" + goalKey;
+                    if (i < 1 << SKIP_BITS && (i == 0 || !index.containsKey(key))) {
+                        index.put(key, position << SKIP_BITS | i);
+                    }
+                    if (i < count) layout = layout.applyMove(records.getInt());
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            long truncated = position;
+            index.values().removeIf(p -> p >>> SKIP_BITS == truncated);
+            channel.truncate(truncated);
+            size = truncated;
+            mapped = null;
+        } catch (RuntimeException e) {
+            throw new IOException("Ficheiro de soluções corrompido", e);
+        }
+    }
+
+    /**
+     * Lê uma string guardada como o seu tamanho em bytes seguido dos bytes em UTF-8.
+     *
+     * @param buffer O buffer, posicionado no início da string.
+     * @return A string lida.
+     */
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Avança o buffer para depois de uma string guardada por append().
+     *
+     * @param buffer O buffer, posicionado no início da string.
+     */
+    private static void skipString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        buffer.position(buffer.position() + length);
+    }
+}
@@ -0,0 +1,114 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Testes da cache de soluções persistente: as soluções têm de sobreviver ao fecho do ficheiro e ser lidas
+ * através do índice, também para os estados intermédios, e um registo incompleto no fim do ficheiro tem
+ * de ser descartado sem perder os anteriores.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ */
+class SolutionCacheTest {
+    private static final int PAIRS = 6;
+
+    @Test
+    void testReabrirFicheiro() throws IOException {
+        Path file = Files.createTempFile("solution-cache-test", ".bin");
+        try {
+            List<Container[]> pairs = randomPairs(new Random(18));
+            try (SolutionCache cache = new SolutionCache(1, file)) {
+                for (Container[] p : pairs) cache.solve(p[0], p[1]);
+            }
+            // Com capacidade 1, a LRU começa vazia e cada par é lido do ficheiro através do índice
+            try (SolutionCache cache = new SolutionCache(1, file)) {
+                for (Container[] p : pairs) {
+                    double expected = TestInstances.cost(new BestFirst().solve(p[0], p[1]), p[1]);
+                    assertEquals(expected, TestInstances.cost(cache.lookup(p[0], p[1]), p[1]), p[0].canonical());
+                }
+                assertEquals(PAIRS, cache.hits());
+                assertEquals(0, cache.misses());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void testSubproblemaIntermedio() throws IOException {
+        Path file = Files.createTempFile("solution-cache-test", ".bin");
+        try {
+            Container start = new Container("C4A2 E1B3 D2F5");
+            Container goal = new Container("ABCDEF");
+            List<BestFirst.State> path = new ArrayList<>();
+            try (SolutionCache cache = new SolutionCache(10, file)) {
+                cache.solve(start, goal).forEachRemaining(path::add);
+            }
+            assertTrue(path.size() > 2);
+
+            try (SolutionCache cache = new SolutionCache(10, file)) {
+                for (int i = 1; i < path.size(); i++) {
+                    Container middle = new Container(((Container) path.get(i).getLayout()).canonical());
+                    assertEquals(path.get(path.size() - 1).getG() - path.get(i).getG(),
+                            TestInstances.cost(cache.lookup(middle, goal), goal), middle.canonical());
+                }
+                assertEquals(path.size() - 1, cache.hits());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void testRegistoIncompleto() throws IOException {
+        Path file = Files.createTempFile("solution-cache-test", ".bin");
+        try {
+            List<Container[]> pairs = randomPairs(new Random(81));
+            try (SolutionCache cache = new SolutionCache(1, file)) {
+                for (Container[] p : pairs) cache.solve(p[0], p[1]);
+            }
+            long complete = Files.size(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(complete - 3);
+            }
+
+            Container[] last = pairs.get(PAIRS - 1);
+            try (SolutionCache cache = new SolutionCache(1, file)) {
+                assertNull(cache.lookup(last[0], last[1]));
+                for (Container[] p : pairs.subList(0, PAIRS - 1)) assertNotNull(cache.lookup(p[0], p[1]));
+                assertTrue(Files.size(file) < complete - 3, "O registo incompleto não foi cortado");
+                cache.solve(last[0], last[1]);
+            }
+            assertEquals(complete, Files.size(file));
+            try (SolutionCache cache = new SolutionCache(1, file)) {
+                assertNotNull(cache.lookup(last[0], last[1]));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Gera pares (inicial, objetivo) aleatórios com soluções diferentes.
+     *
+     * @param random O gerador de números aleatórios.
+     * @return Os pares.
+     */
+    private static List<Container[]> randomPairs(Random random) {
+        List<Container[]> pairs = new ArrayList<>();
+        while (pairs.size() < PAIRS) {
+            Container start = new Container(TestInstances.randomConfig(random, 6, true));
+            Container goal = new Container(TestInstances.randomConfig(random, 6, false));
+            if (!start.isGoal(start.prepareGoal(goal))) pairs.add(new Container[]{start, goal});
+        }
+        return pairs;
+    }
+}
@@ -0,0 +1,69 @@
+import java.util.*;
+
+/**
+ * Instâncias aleatórias e verificação de soluções partilhadas pelos testes das procuras.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ */
+class TestInstances {
+    private static final String IDS = "ABCDEFGHIJ";
+
+    private TestInstances() {
+    }
+
+    /**
+     * Gera uma configuração aleatória com os primeiros contentores de IDS em pilhas aleatórias.
+     *
+     * @param random O gerador de números aleatórios.
+     * @param containers O número de contentores, no máximo o tamanho de IDS.
+     * @param withCosts true para escrever um custo de 1 a 9 a seguir a cada contentor.
+     * @return A configuração no formato de entrada.
+     */
+    static String randomConfig(Random random, int containers, boolean withCosts) {
+        List<Character> order = new ArrayList<>();
+        for (char c : IDS.substring(0, containers).toCharArray()) order.add(c);
+        Collections.shuffle(order, random);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < order.size(); i++) {
+            if (i > 0 && random.nextInt(3) == 0) sb.append(' ');
+            sb.append(order.get(i));
+            if (withCosts) sb.append(1 + random.nextInt(9));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Percorre uma solução, verificando que cada estado é filho do anterior com o custo indicado e que o
+     * último estado é o objetivo.
+     *
+     * @param solution O iterador sobre a sequência de estados da solução.
+     * @param goal O objetivo.
+     * @return O custo da solução.
+     * @throws AssertionError Se a sequência não for um caminho válido até ao objetivo.
+     */
+    static double cost(Iterator<BestFirst.State> solution, Ilayout goal) {
+        BestFirst.State previous = null;
+        double g = 0;
+        while (solution.hasNext()) {
+            BestFirst.State state = solution.next();
+            if (previous != null) {
+                // Uma cópia sem movimento de origem gera todos os filhos, sem poda
+                double step = Double.NaN;
+                for (Ilayout child : ((Container) previous.getLayout()).withCommutativePruning(false).children()) {
+                    if (child.equals(state.getLayout())) step = child.getK();
+                }
+                if (Double.isNaN(step)) throw new AssertionError("Movimento inválido para " + state.getLayout());
+                g += step;
+            }
+            previous = state;
+        }
+        if (previous == null || !previous.getLayout().isGoal(goal)) {
+            throw new AssertionError("Objetivo não alcançado");
+        }
+        if (g != previous.getG()) throw new AssertionError("Custo " + previous.getG() + " diferente de " + g);
+        return g;
+    }
+}
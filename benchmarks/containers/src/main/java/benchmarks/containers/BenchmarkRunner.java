@@ -0,0 +1,32 @@
+package benchmarks.containers;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Executa os benchmarks deste módulo com o profiler de GC, que acrescenta a cada resultado
+ * a taxa de alocação (gc.alloc.rate e gc.alloc.rate.norm) às operações por segundo.
+ * Aceita os mesmos argumentos da linha de comando do JMH (por exemplo, um padrão com os benchmarks a correr).
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(cmd);
+        if (cmd.getIncludes().isEmpty()) builder.include(BenchmarkRunner.class.getPackage().getName() + "\\..*");
+        Options options = builder.addProfiler(GCProfiler.class).build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,73 @@
+package benchmarks.containers;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks das operações sobre um estado de contentores: geração dos filhos, heurística,
+ * hash e igualdade, nos estados iniciais das instâncias do corpus.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContainerBenchmark {
+
+    @Param({"easy", "medium", "hard"})
+    public String instance;
+
+    private Object start;
+    private Object same;
+    private Object goal;
+
+    @Setup
+    public void setUp() throws Throwable {
+        String[] pair = Corpus.instance(instance);
+        start = Search.container(pair[0]);
+        same = Search.container(pair[0]);
+        goal = (Object) Search.PREPARE_GOAL.invokeExact(start, Search.container(pair[1]));
+    }
+
+    @Benchmark
+    public Object children() throws Throwable {
+        return (Object) Search.CHILDREN.invokeExact(start);
+    }
+
+    @Benchmark
+    public Object heuristic() throws Throwable {
+        return (Object) Search.HEURISTIC.invokeExact(start, goal);
+    }
+
+    @Benchmark
+    public int hashCodeOf() {
+        return start.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsSame() {
+        return start.equals(same);
+    }
+
+    @Benchmark
+    public boolean equalsDifferent() {
+        return start.equals(goal);
+    }
+}
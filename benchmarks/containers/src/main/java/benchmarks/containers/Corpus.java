@@ -0,0 +1,36 @@
+package benchmarks.containers;
+
+/**
+ * Instâncias fixas usadas pelos benchmarks, com a configuração inicial e a configuração objetivo.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ */
+final class Corpus {
+
+    private Corpus() {
+    }
+
+    /**
+     * Retorna uma instância do corpus.
+     *
+     * @param name "easy" (4 contentores, custo 12), "medium" (7 contentores, custo 53)
+     *             ou "hard" (8 contentores, custo 70).
+     * @return A configuração inicial e a configuração objetivo.
+     * @throws IllegalArgumentException Se a instância não existir.
+     */
+    static String[] instance(String name) {
+        switch (name) {
+            case "easy":
+                return new String[]{"A1B2C3 D4", "ACD B"};
+            case "medium":
+                return new String[]{"G9C6D9 B5 F3E3A6", "FAB EG CD"};
+            case "hard":
+                return new String[]{"D4H4A4G9 F7E7C3B8", "CFEB DGH A"};
+            default:
+                throw new IllegalArgumentException("Instância desconhecida: " + name);
+        }
+    }
+}
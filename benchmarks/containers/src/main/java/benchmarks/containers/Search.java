@@ -0,0 +1,82 @@
+package benchmarks.containers;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+/**
+ * Acesso às classes do projeto dos contentores a partir dos benchmarks.
+ * As classes do projeto estão no pacote por omissão, que não pode ser importado nem usado pelo JMH,
+ * por isso os construtores e métodos são obtidos uma única vez por reflexão e guardados em
+ * MethodHandle constantes, que o JIT trata como chamadas diretas.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ */
+final class Search {
+    private static final Class<?> ILAYOUT = load("Ilayout");
+
+    /** new Container(String) */
+    static final MethodHandle NEW_CONTAINER = constructor("Container", String.class);
+    /** Ilayout.children() */
+    static final MethodHandle CHILDREN = method("Ilayout", "children");
+    /** Ilayout.heuristic(Ilayout) */
+    static final MethodHandle HEURISTIC = method("Ilayout", "heuristic", ILAYOUT);
+    /** Ilayout.prepareGoal(Ilayout) */
+    static final MethodHandle PREPARE_GOAL = method("Ilayout", "prepareGoal", ILAYOUT);
+    /** new BestFirst() */
+    static final MethodHandle NEW_BEST_FIRST = constructor("BestFirst");
+    /** BestFirst.solve(Ilayout, Ilayout) */
+    static final MethodHandle SOLVE = method("BestFirst", "solve", ILAYOUT, ILAYOUT);
+
+    private Search() {
+    }
+
+    /**
+     * Cria um contêiner a partir da sua configuração.
+     *
+     * @param config A configuração dos contentores.
+     * @return O contêiner criado.
+     */
+    static Object container(String config) {
+        try {
+            return (Object) NEW_CONTAINER.invokeExact((Object) config);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Configuração inválida: " + config, e);
+        }
+    }
+
+    private static Class<?> load(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Classe do projeto não encontrada: " + name, e);
+        }
+    }
+
+    private static MethodHandle constructor(String cls, Class<?>... params) {
+        try {
+            Constructor<?> c = load(cls).getDeclaredConstructor(params);
+            c.setAccessible(true);
+            MethodHandle h = MethodHandles.lookup().unreflectConstructor(c);
+            return h.asType(MethodType.genericMethodType(params.length));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Construtor não encontrado em " + cls, e);
+        }
+    }
+
+    private static MethodHandle method(String cls, String name, Class<?>... params) {
+        try {
+            Method m = load(cls).getDeclaredMethod(name, params);
+            m.setAccessible(true);
+            MethodHandle h = MethodHandles.lookup().unreflect(m);
+            return h.asType(MethodType.genericMethodType(params.length + 1));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Método não encontrado: " + cls + "." + name, e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package benchmarks.containers;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark da procura completa com BestFirst.solve, desde a leitura das configurações até ao
+ * último estado da solução, para cada instância do corpus.
+ *
+ * @author Andreia Qiu 79856
+ * @author Eduarda Pereira 79749
+ * @author Guilherme Carmo 79860
+ * @version 1.0 2024-10-28
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"easy", "medium", "hard"})
+    public String instance;
+
+    @Benchmark
+    public Object solve() throws Throwable {
+        String[] pair = Corpus.instance(instance);
+        Object search = (Object) Search.NEW_BEST_FIRST.invokeExact();
+        Iterator<?> it = (Iterator<?>) (Object) Search.SOLVE.invokeExact(search,
+                Search.container(pair[0]), Search.container(pair[1]));
+        Object last = null;
+        while (it.hasNext()) last = it.next();
+        return last;
+    }
+}
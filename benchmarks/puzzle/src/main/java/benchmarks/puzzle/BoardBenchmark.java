@@ -0,0 +1,47 @@
+package benchmarks.puzzle;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark da geração dos filhos de um tabuleiro 3x3 e de um tabuleiro 4x4.
+ * @author Andreia Qiu
+ * @author Eduarda Pereira
+ * @author Guilherme Carmo
+ * @version 1; 22/09/2024
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    @Param({"867254301", "5E29A7C8D3B16F04"})
+    public String tiles;
+
+    private Object board;
+
+    @Setup
+    public void setUp() {
+        board = Search.board(tiles);
+    }
+
+    @Benchmark
+    public Object children() throws Throwable {
+        return (Object) Search.CHILDREN.invokeExact(board);
+    }
+
+}
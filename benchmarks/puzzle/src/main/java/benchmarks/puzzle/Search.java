@@ -0,0 +1,75 @@
+package benchmarks.puzzle;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+/**
+ * Acesso às classes do projeto do puzzle a partir dos benchmarks.
+ * As classes do projeto estão no pacote por omissão e não são públicas, por isso os construtores
+ * e métodos são obtidos uma única vez por reflexão e guardados em MethodHandle constantes.
+ * @author Andreia Qiu
+ * @author Eduarda Pereira
+ * @author Guilherme Carmo
+ * @version 1; 22/09/2024
+ */
+final class Search {
+    private static final Class<?> ILAYOUT = load("Ilayout");
+
+    /** new Board(String) */
+    static final MethodHandle NEW_BOARD = constructor("Board", String.class);
+    /** Ilayout.children() */
+    static final MethodHandle CHILDREN = method("Ilayout", "children");
+    /** new BestFirst() */
+    static final MethodHandle NEW_BEST_FIRST = constructor("BestFirst");
+    /** BestFirst.solve(Ilayout, Ilayout) */
+    static final MethodHandle SOLVE = method("BestFirst", "solve", ILAYOUT, ILAYOUT);
+
+    private Search() {
+    }
+
+    /**
+     * Cria um tabuleiro a partir da sua representação.
+     * @param tiles Peças do tabuleiro, linha a linha
+     * @return Tabuleiro criado
+     */
+    static Object board(String tiles) {
+        try {
+            return (Object) NEW_BOARD.invokeExact((Object) tiles);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Tabuleiro inválido: " + tiles, e);
+        }
+    }
+
+    private static Class<?> load(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Classe do projeto não encontrada: " + name, e);
+        }
+    }
+
+    private static MethodHandle constructor(String cls, Class<?>... params) {
+        try {
+            Constructor<?> c = load(cls).getDeclaredConstructor(params);
+            c.setAccessible(true);
+            MethodHandle h = MethodHandles.lookup().unreflectConstructor(c);
+            return h.asType(MethodType.genericMethodType(params.length));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Construtor não encontrado em " + cls, e);
+        }
+    }
+
+    private static MethodHandle method(String cls, String name, Class<?>... params) {
+        try {
+            Method m = load(cls).getDeclaredMethod(name, params);
+            m.setAccessible(true);
+            MethodHandle h = MethodHandles.lookup().unreflect(m);
+            return h.asType(MethodType.genericMethodType(params.length + 1));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Método não encontrado: " + cls + "." + name, e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package benchmarks.puzzle;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark da procura completa com BestFirst.solve em instâncias do 8-puzzle.
+ * @author Andreia Qiu
+ * @author Eduarda Pereira
+ * @author Guilherme Carmo
+ * @version 1; 22/09/2024
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    /** Estado inicial: fácil (8 movimentos), médio (22) e difícil (31). */
+    @Param({"413726580", "763148025", "867254301"})
+    public String initial;
+
+    @Benchmark
+    public Object solve() throws Throwable {
+        Object search = (Object) Search.NEW_BEST_FIRST.invokeExact();
+        Iterator<?> it = (Iterator<?>) (Object) Search.SOLVE.invokeExact(search,
+                Search.board(initial), Search.board("123456780"));
+        Object last = null;
+        while (it.hasNext()) last = it.next();
+        return last;
+    }
+}
@@ -1,16 +1,17 @@
 import java.util.*;
 /**
  * Classe BestFirst que implementa o algoritmo de procura Best-First para encontrar um caminho do estado inicial ao objetivo.
- * Utiliza uma fila de prioridade (PriorityQueue) baseada no custo g, calculado pela função getK do layout.
+ * Utiliza uma fila de prioridade (PriorityQueue) baseada em f = g + h, onde g é calculado pela função getK do layout
+ * e h pela heurística do layout (algoritmo A*).
  * @author Andreia Qiu
  * @author Eduarda Pereira
  * @author Guilherme Carmo
  * @version 1; 22/09/2024
- * @inv a fila de abertos nunca contém estados repetidos, e o conjunto fechados guarda estados já processados.
+ * @inv o conjunto fechados guarda as chaves (Ilayout.key) dos estados já processados, e nenhum estado é expandido duas vezes.
  */
 class BestFirst {
     protected Queue<State> abertos; // Fila de estados a serem processados
-    private Map<Ilayout, State> fechados; // Conjunto de estados já processados
+    private LongHashSet fechados; // Chaves dos estados já processados
     private State actual; // Estado atual sendo processado
     private Ilayout objective; // Estado objetivo a ser alcançado
 
@@ -21,6 +22,7 @@ class BestFirst {
         private Ilayout layout; // Layout do estado
         private State father; // Estado pai do estado atual
         private double g; // Custo g (distância do estado inicial ao estado atual)
+        private double h; // Estimativa h do custo até ao objetivo, calculada uma única vez
 
         /**
          * Construtor da classe State.
@@ -35,6 +37,14 @@ class BestFirst {
             else g = 0.0; // Se não houver pai, custo g é zero
         }
 
+        /**
+         * Retorna o valor de f, a soma do custo g com a estimativa h.
+         * @return Valor f do estado
+         */
+        public double getF() {
+            return g + h;
+        }
+
         /**
          * Retorna a representação textual do layout.
          * @return String representando o layout do estado
@@ -83,6 +93,7 @@ class BestFirst {
         for (Ilayout e : children) {
             if (n.father == null || !e.equals(n.father.layout)) { // Evita adicionar o pai como sucessor
                 State nn = new State(e, n); // Cria um novo estado sucessor
+                nn.h = e.heuristic(objective); // Calcula a heurística apenas uma vez por estado
                 sucs.add(nn);
             }
         }
@@ -91,7 +102,7 @@ class BestFirst {
 
     /**
      * Resolve o problema de procura encontrando um caminho do estado inicial ao objetivo.
-     * Utiliza uma fila de prioridade para expandir estados com menor custo g.
+     * Utiliza uma fila de prioridade para expandir estados com menor valor f = g + h.
      * @param s Estado inicial do problema
      * @param goal Estado objetivo a ser alcançado
      * @return Iterador para a sequência de estados que compõem o caminho da solução, ou um iterador vazio se não houver solução
@@ -99,10 +110,15 @@ class BestFirst {
      */
     final public Iterator<State> solve(Ilayout s, Ilayout goal) {
         objective = goal;
-        abertos = new PriorityQueue<>(10,
-                (s1, s2) -> (int) Math.signum(s1.getG() - s2.getG())); // Compara os estados com base no custo g
-        fechados = new HashMap<>();
-        abertos.add(new State(s, null)); // Adiciona o estado inicial na fila de abertos
+        // Compara os estados com base no valor f; em caso de empate, prefere o de maior g (mais perto do objetivo)
+        abertos = new PriorityQueue<>(10, (s1, s2) -> {
+            int c = Double.compare(s1.getF(), s2.getF());
+            return c != 0 ? c : Double.compare(s2.g, s1.g);
+        });
+        fechados = new LongHashSet();
+        State root = new State(s, null);
+        root.h = s.heuristic(objective);
+        abertos.add(root); // Adiciona o estado inicial na fila de abertos
 
         while (!abertos.isEmpty()) {
             // Remove o estado com o menor custo da fila de abertos
@@ -122,14 +138,14 @@ class BestFirst {
                 return solutionPath.iterator();
             }
 
-            // Adiciona o estado atual ao conjunto de fechados
-            fechados.put(actual.layout, actual);
+            // Adiciona o estado atual ao conjunto de fechados; se já lá estava, foi alcançado antes com custo menor
+            if (!fechados.add(actual.layout.key())) continue;
 
             // Gera os sucessores do estado atual
             List<State> sucs = sucessores(actual);
             for (State succ : sucs) {
                 // Se o sucessor não estiver no conjunto de fechados, adiciona-o na fila de abertos
-                if (!fechados.containsKey(succ.layout)) {
+                if (!fechados.contains(succ.layout.key())) {
                     abertos.add(succ);
                 }
             }
@@ -1,56 +1,330 @@
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
+import java.util.SplittableRandom;
 
 /**
- * Classe Board que implementa um tabuleiro para um problema de layout (por exemplo, o jogo do 8-puzzle).
+ * Classe Board que implementa um tabuleiro NxN para um problema de layout (por exemplo, o 8-puzzle, o 15-puzzle ou o 24-puzzle).
  * Contém métodos para manipular o tabuleiro, gerar sucessores e verificar se atingiu o estado objetivo.
+ * As peças são guardadas em palavras de 64 bits, com 4 bits por peça até 4x4 (um único long) e os bits
+ * necessários nos tabuleiros maiores, o que torna a cópia, a igualdade e o hash operações baratas.
+ * O tabuleiro mantém a distância de Manhattan mais os conflitos lineares em relação ao último objetivo usado,
+ * atualizada em cada movimento do espaço vazio em vez de recalculada. A heurística a usar é escolhida no
+ * tabuleiro objetivo (withHeuristic), pelo que procuras com heurísticas diferentes não interferem entre si.
+ * Os movimentos também podem ser aplicados e desfeitos no próprio tabuleiro (interface Imovable), o que é usado
+ * pelo IDA*; um tabuleiro guardado noutro sítio não deve ser alterado assim. A posição do espaço vazio é mantida
+ * a cada movimento e os vizinhos de cada célula estão numa tabela pré-calculada, pelo que aplicar ou desfazer
+ * um movimento não percorre o tabuleiro nem cria objetos.
  * @author Andreia Qiu
  * @author Eduarda Pereira
  * @author Guilherme Carmo
  * @version 1; 22/09/2024
- * @inv O tabuleiro deve conter sempre valores válidos e ser de dimensão 3x3, com um espaço vazio representado por 0.
+ * @inv O tabuleiro deve conter sempre valores válidos e ser de dimensão NxN (2 <= N <= 16), com um espaço vazio representado por 0.
  */
-class Board implements Ilayout, Cloneable {
-    private static final int dim = 3; // Dimensão do tabuleiro (3x3)
-    private int board[][]; // Representação do tabuleiro
+class Board implements Imovable, Cloneable {
+    private static final int MAX_DIM = 16; // Maior dimensão suportada
+    private static final int MOVES = 4; // Movimentos do espaço vazio: cima, baixo, esquerda, direita
+    private static final Geometry[] geometries = new Geometry[MAX_DIM + 1]; // Geometria de cada dimensão
+    private static volatile GoalIndex lastGoal; // Último objetivo usado na heurística
+
+    private final Geometry geo; // Geometria do tabuleiro (dimensão e codificação)
+    private long board; // Primeira palavra do tabuleiro: a peça da célula i ocupa os bits [bits * i, bits * (i + 1))
+    private long[] more; // Restantes palavras, ou null se o tabuleiro couber num único long
+    private long zobrist; // Chave de Zobrist (XOR dos valores de cada peça na sua célula) se more != null
+    private int zero; // Índice (linha * dim + coluna) do espaço vazio, ou -1 se não existir
+    private GoalIndex index; // Objetivo em relação ao qual h foi calculado, ou null se ainda não foi
+    private int h; // Distância de Manhattan mais conflitos lineares em relação a index
+    private Heuristic heuristic = Heuristic.MANHATTAN; // Heurística usada quando este tabuleiro é o objetivo
+
+    /**
+     * Heurística usada para estimar a distância de um tabuleiro a este objetivo.
+     */
+    enum Heuristic {
+        /** Distância de Manhattan mais os conflitos lineares. */
+        MANHATTAN,
+        /** O maior entre a distância de Manhattan com conflitos lineares e a base de dados de padrões (até 5x5). */
+        PATTERN_DATABASE,
+        /** Distância exata da tabela de distâncias no 3x3; nas outras dimensões, a distância de Manhattan. */
+        DISTANCE_TABLE
+    }
+
+    /**
+     * Geometria de um tabuleiro de uma dada dimensão: número de células, codificação das peças
+     * e, para cada célula, a célula vizinha em cada direção.
+     */
+    private static final class Geometry {
+        private final int dim; // Dimensão do tabuleiro
+        private final int cells; // Número de células
+        private final int bits; // Bits por peça
+        private final int perWord; // Peças por palavra de 64 bits
+        private final long mask; // Máscara que isola uma peça
+        private final int words; // Número de palavras do tabuleiro
+        private final int[] neighbors; // Célula vizinha de cada célula em cada direção (cell * MOVES + m), ou -1 fora do tabuleiro
+        private final long[] zobrist; // Valor aleatório de cada (peça, célula), ou null se o tabuleiro couber num long
+
+        private Geometry(int dim) {
+            this.dim = dim;
+            this.cells = dim * dim;
+            this.bits = Math.max(4, 32 - Integer.numberOfLeadingZeros(cells - 1));
+            this.perWord = 64 / bits;
+            this.mask = (1L << bits) - 1;
+            this.words = (cells + perWord - 1) / perWord;
+            this.neighbors = new int[cells * MOVES];
+            for (int cell = 0; cell < cells; cell++) {
+                int row = cell / dim;
+                int col = cell % dim;
+                neighbors[cell * MOVES] = row > 0 ? cell - dim : -1;
+                neighbors[cell * MOVES + 1] = row < dim - 1 ? cell + dim : -1;
+                neighbors[cell * MOVES + 2] = col > 0 ? cell - 1 : -1;
+                neighbors[cell * MOVES + 3] = col < dim - 1 ? cell + 1 : -1;
+            }
+            if (words > 1) {
+                SplittableRandom random = new SplittableRandom(dim);
+                this.zobrist = new long[cells * cells];
+                for (int i = 0; i < zobrist.length; i++) zobrist[i] = random.nextLong();
+            } else {
+                this.zobrist = null;
+            }
+        }
+
+        /**
+         * Retorna a geometria de uma dimensão, criando-a na primeira utilização.
+         * @param dim Dimensão do tabuleiro
+         * @return Geometria partilhada por todos os tabuleiros dessa dimensão
+         */
+        private static synchronized Geometry of(int dim) {
+            Geometry g = geometries[dim];
+            if (g == null) {
+                g = new Geometry(dim);
+                geometries[dim] = g;
+            }
+            return g;
+        }
+    }
+
+    /**
+     * Informação pré-calculada de um objetivo: a célula de destino de cada peça, usada pela distância
+     * de Manhattan e pelos conflitos lineares, e a base de dados de padrões, carregada quando é pedida.
+     */
+    private static final class GoalIndex {
+        private final Board goal; // Cópia do tabuleiro objetivo
+        private final int dim; // Dimensão do tabuleiro
+        private final int[] goalCell; // Célula de cada peça no objetivo
+        private volatile PatternDatabase database; // Base de dados de padrões do objetivo
+        private volatile DistanceTable distances; // Tabela de distâncias do objetivo (apenas 3x3)
+
+        private GoalIndex(Board goal) {
+            this.goal = new Board(goal);
+            this.dim = goal.geo.dim;
+            this.goalCell = new int[goal.geo.cells];
+            for (int cell = 0; cell < goalCell.length; cell++) goalCell[goal.tileAt(cell)] = cell;
+        }
+
+        /**
+         * Retorna a distância de Manhattan de uma peça, numa dada célula, à sua célula no objetivo.
+         * @param tile Peça
+         * @param cell Célula onde a peça se encontra
+         * @return Número de linhas mais número de colunas que separam a peça do seu destino
+         */
+        private int distance(int tile, int cell) {
+            int target = goalCell[tile];
+            return Math.abs(cell / dim - target / dim) + Math.abs(cell % dim - target % dim);
+        }
+
+        /**
+         * Calcula os movimentos extra causados pelos conflitos lineares de uma linha ou coluna.
+         * Das peças que já estão na sua linha (ou coluna) de destino, as que não fazem parte da maior
+         * subsequência pela ordem do objetivo têm de sair e voltar, o que custa 2 movimentos cada.
+         * @param b Tabuleiro
+         * @param line Índice da linha ou coluna
+         * @param row true para uma linha, false para uma coluna
+         * @return Dobro do número de peças que têm de sair da linha
+         */
+        private int conflicts(Board b, int line, boolean row) {
+            long tails = 0; // Menor fim de cada subsequência crescente, 4 bits por comprimento
+            int length = 0; // Comprimento da maior subsequência crescente
+            int count = 0; // Peças na sua linha de destino
+            for (int i = 0; i < dim; i++) {
+                int tile = b.tileAt(row ? line * dim + i : i * dim + line);
+                if (tile == 0) continue;
+                int target = goalCell[tile];
+                if ((row ? target / dim : target % dim) != line) continue;
+                int x = row ? target % dim : target / dim;
+                count++;
+                int j = 0;
+                while (j < length && ((tails >>> (4 * j)) & 0xF) < x) j++;
+                tails = (tails & ~(0xFL << (4 * j))) | ((long) x << (4 * j));
+                if (j == length) length++;
+            }
+            return 2 * (count - length);
+        }
+
+        /**
+         * Calcula de raiz a distância de Manhattan mais os conflitos lineares de um tabuleiro.
+         * @param b Tabuleiro
+         * @return Valor da heurística
+         */
+        private int estimate(Board b) {
+            int sum = 0;
+            for (int cell = 0; cell < b.geo.cells; cell++) {
+                int tile = b.tileAt(cell);
+                if (tile != 0) sum += distance(tile, cell);
+            }
+            for (int line = 0; line < dim; line++) sum += conflicts(b, line, true) + conflicts(b, line, false);
+            return sum;
+        }
+
+        /**
+         * Retorna a base de dados de padrões do objetivo, carregando-a na primeira utilização.
+         * @return Base de dados de padrões
+         */
+        private PatternDatabase database() {
+            PatternDatabase db = database;
+            if (db == null) {
+                int[] goalTiles = new int[goal.geo.cells];
+                for (int cell = 0; cell < goalTiles.length; cell++) goalTiles[cell] = goal.tileAt(cell);
+                db = PatternDatabase.forGoal(dim, goalTiles);
+                database = db;
+            }
+            return db;
+        }
+
+        /**
+         * Retorna a tabela de distâncias do objetivo, carregando-a na primeira utilização.
+         * @return Tabela de distâncias
+         */
+        private DistanceTable distances() {
+            DistanceTable dt = distances;
+            if (dt == null) {
+                dt = DistanceTable.forGoal(goal.tiles());
+                distances = dt;
+            }
+            return dt;
+        }
+    }
 
     /**
-     * Construtor padrão que cria um tabuleiro vazio.
+     * Construtor padrão que cria um tabuleiro 3x3 vazio.
      */
     public Board() {
-        board = new int[dim][dim];
+        geo = Geometry.of(3);
+        zero = 0;
     }
 
     /**
      * Construtor que inicializa o tabuleiro a partir de uma string representando o estado inicial.
+     * A string tem uma peça por célula, linha a linha: um carácter por peça (0-9 e depois A-Z, até 6x6)
+     * ou números separados por vírgulas. A dimensão é a raiz quadrada do número de peças.
      * @param str String que representa o estado inicial do tabuleiro
-     * @throws IllegalStateException Se o tamanho da string for inválido
+     * @throws IllegalStateException Se o tamanho da string ou alguma peça for inválida
      */
     public Board(String str) throws IllegalStateException {
-        if (str.length() != dim * dim) throw new
+        String[] tokens = str.indexOf(',') >= 0 ? str.split(",") : null;
+        int cells = tokens != null ? tokens.length : str.length();
+        int dim = (int) Math.round(Math.sqrt(cells));
+        if (dim < 2 || dim > MAX_DIM || dim * dim != cells) throw new
                 IllegalStateException("Invalid arg in Board constructor");
-        board = new int[dim][dim];
-        int si = 0;
-        for (int i = 0; i < dim; i++)
-            for (int j = 0; j < dim; j++)
-                board[i][j] = Character.getNumericValue(str.charAt(si++));
+        geo = Geometry.of(dim);
+        if (geo.words > 1) more = new long[geo.words - 1];
+        zero = -1;
+        for (int i = 0; i < cells; i++) {
+            int tile;
+            try {
+                tile = tokens != null ? Integer.parseInt(tokens[i].trim()) : Character.getNumericValue(str.charAt(i));
+            } catch (NumberFormatException e) {
+                tile = -1;
+            }
+            if (tile < 0 || tile >= cells) throw new
+                    IllegalStateException("Invalid arg in Board constructor");
+            setTile(i, tile);
+            if (geo.zobrist != null) zobrist ^= geo.zobrist[tile * cells + i];
+            if (tile == 0 && zero < 0) zero = i;
+        }
+    }
+
+    /**
+     * Construtor de cópia, usado para criar sucessores sem voltar a interpretar uma string.
+     * A cópia mantém o valor da heurística, que continua a ser atualizado nos seus movimentos.
+     * @param other Tabuleiro a copiar
+     */
+    private Board(Board other) {
+        geo = other.geo;
+        board = other.board;
+        more = other.more == null ? null : other.more.clone();
+        zobrist = other.zobrist;
+        zero = other.zero;
+        index = other.index;
+        h = other.h;
+        heuristic = other.heuristic;
+    }
+
+    /**
+     * Retorna uma cópia deste tabuleiro que, usada como objetivo, faz a heurística usar a estimativa indicada.
+     * A escolha acompanha o objetivo passado à procura, em vez de ser um estado global.
+     * @param heuristic Heurística a usar
+     * @return Cópia do tabuleiro com a heurística escolhida
+     */
+    Board withHeuristic(Heuristic heuristic) {
+        Board b = new Board(this);
+        b.heuristic = heuristic;
+        return b;
+    }
+
+    /**
+     * Retorna as peças do tabuleiro, célula a célula.
+     * @return Array com a peça de cada célula (0 para o espaço vazio)
+     */
+    int[] tiles() {
+        int[] tiles = new int[geo.cells];
+        for (int cell = 0; cell < tiles.length; cell++) tiles[cell] = tileAt(cell);
+        return tiles;
+    }
+
+    /**
+     * Retorna a peça que se encontra numa célula do tabuleiro.
+     * @param cell Índice da célula (linha * dim + coluna)
+     * @return Valor da peça (0 para o espaço vazio)
+     */
+    private int tileAt(int cell) {
+        int w = cell / geo.perWord;
+        long word = w == 0 ? board : more[w - 1];
+        return (int) ((word >>> ((cell % geo.perWord) * geo.bits)) & geo.mask);
+    }
+
+    /**
+     * Coloca uma peça numa célula do tabuleiro.
+     * @param cell Índice da célula
+     * @param tile Valor da peça
+     */
+    private void setTile(int cell, int tile) {
+        int w = cell / geo.perWord;
+        int shift = (cell % geo.perWord) * geo.bits;
+        long word = w == 0 ? board : more[w - 1];
+        word = (word & ~(geo.mask << shift)) | ((long) tile << shift);
+        if (w == 0) board = word;
+        else more[w - 1] = word;
     }
 
     /**
      * Retorna a representação textual do tabuleiro.
+     * Até 6x6 cada peça ocupa um carácter (0-9 e depois A-Z); nos tabuleiros maiores as peças são separadas por espaços.
      * @return String representando o estado do tabuleiro
      */
     @Override
     public String toString() {
+        boolean compact = geo.cells <= Character.MAX_RADIX;
+        int width = String.valueOf(geo.cells - 1).length();
         StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < dim; i++) {
-            for (int j = 0; j < dim; j++) {
-                if (board[i][j] == 0) {
-                    sb.append(" "); // Representa o espaço vazio com um espaço em branco
-                } else {
-                    sb.append(board[i][j]);
+        for (int i = 0; i < geo.dim; i++) {
+            for (int j = 0; j < geo.dim; j++) {
+                int tile = tileAt(i * geo.dim + j);
+                String text = tile == 0 ? " " : compact
+                        ? String.valueOf(Character.toUpperCase(Character.forDigit(tile, Character.MAX_RADIX)))
+                        : String.valueOf(tile);
+                if (!compact) {
+                    if (j > 0) sb.append(' ');
+                    for (int pad = text.length(); pad < width; pad++) sb.append(' ');
                 }
+                sb.append(text); // O espaço vazio é representado por um espaço em branco
             }
             sb.append("\n"); // Nova linha após cada linha do tabuleiro
         }
@@ -66,45 +340,49 @@ class Board implements Ilayout, Cloneable {
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
-        Board board1 = (Board) o;
-        for (int i = 0; i < dim; i++) {
-            for (int j = 0; j < dim; j++) {
-                if (board[i][j] != board1.board[i][j]) {
-                    return false;
-                }
-            }
+        Board other = (Board) o;
+        if (geo != other.geo || board != other.board) return false;
+        for (int w = 0; more != null && w < more.length; w++) {
+            if (more[w] != other.more[w]) return false;
         }
         return true;
     }
 
     /**
-     * Retorna o código hash do tabuleiro.
+     * Retorna o código hash do tabuleiro, calculado a partir do seu conteúdo.
      * @return Código hash do tabuleiro
      */
     @Override
     public int hashCode() {
-        return Objects.hash((Object) board);
+        return Long.hashCode(key());
+    }
+
+    /**
+     * Retorna a chave de 64 bits do tabuleiro. Até 4x4 a chave é a própria codificação e identifica o tabuleiro
+     * sem colisões; nos tabuleiros maiores é a chave de Zobrist, atualizada em cada movimento.
+     * @return Chave do tabuleiro
+     */
+    @Override
+    public long key() {
+        return more == null ? board : zobrist;
     }
 
     /**
      * Gera e retorna uma lista de layouts sucessores possíveis, fazendo movimentos válidos do espaço vazio.
      * @return Lista de sucessores do layout atual
+     * @throws IllegalStateException Se não houver espaço vazio no tabuleiro
      */
     @Override
     public List<Ilayout> children() {
-        List<Ilayout> children = new ArrayList<>();
-        int[] zeroPosition = findZero(); // Encontra a posição do espaço vazio
-        int zeroRow = zeroPosition[0];
-        int zeroCol = zeroPosition[1];
+        if (zero < 0) throw new IllegalStateException("No zero found on the board");
+        List<Ilayout> children = new ArrayList<>(MOVES);
 
         // Movimentos possíveis: cima, baixo, esquerda, direita
-        int[][] moves = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
-        for (int[] move : moves) {
-            int newRow = zeroRow + move[0];
-            int newCol = zeroCol + move[1];
-            if (isValidMove(newRow, newCol)) {
-                Board child = (Board) this.clone(); // Clona o tabuleiro atual
-                child.swap(zeroRow, zeroCol, newRow, newCol); // Troca o espaço vazio com a nova posição
+        for (int m = 0; m < MOVES; m++) {
+            int cell = geo.neighbors[zero * MOVES + m];
+            if (cell >= 0) {
+                Board child = new Board(this);
+                child.slide(cell);
                 children.add(child);
             }
         }
@@ -112,64 +390,159 @@ class Board implements Ilayout, Cloneable {
     }
 
     /**
-     * Retorna o custo de movimentação. Neste caso, um custo uniforme de 1 por movimento.
-     * @return Custo de cada movimento
+     * Troca o espaço vazio com a peça de uma célula vizinha e atualiza a heurística apenas com o que mudou:
+     * a distância de Manhattan da peça movida e os conflitos das duas colunas (movimento horizontal)
+     * ou das duas linhas (movimento vertical) por onde a peça passou.
+     * @param cell Índice da célula vizinha do espaço vazio
+     */
+    private void slide(int cell) {
+        int tile = tileAt(cell);
+        int target = zero;
+        boolean horizontal = cell / geo.dim == target / geo.dim;
+        int lineFrom = horizontal ? cell % geo.dim : cell / geo.dim;
+        int lineTo = horizontal ? target % geo.dim : target / geo.dim;
+        int before = 0;
+        if (index != null) {
+            before = index.conflicts(this, lineFrom, !horizontal) + index.conflicts(this, lineTo, !horizontal);
+        }
+        setTile(cell, 0);
+        setTile(target, tile);
+        if (geo.zobrist != null) {
+            int base = tile * geo.cells;
+            zobrist ^= geo.zobrist[base + cell] ^ geo.zobrist[base + target]
+                    ^ geo.zobrist[cell] ^ geo.zobrist[target]; // O espaço vazio troca de célula com a peça
+        }
+        zero = cell;
+        if (index != null) {
+            int after = index.conflicts(this, lineFrom, !horizontal) + index.conflicts(this, lineTo, !horizontal);
+            h += index.distance(tile, target) - index.distance(tile, cell) + after - before;
+        }
+    }
+
+    /**
+     * Retorna o número de movimentos do espaço vazio: cima, baixo, esquerda e direita.
+     * @return Número máximo de movimentos
      */
     @Override
-    public double getK() {
-        return 1.0; // Custo uniforme por movimento
+    public int maxMoves() {
+        return MOVES;
     }
 
     /**
-     * Clona o tabuleiro atual.
-     * @return Uma cópia do tabuleiro
+     * Verifica se o espaço vazio pode ser movido na direção dada sem sair do tabuleiro,
+     * consultando a tabela de vizinhos da célula do espaço vazio.
+     * @param m Direção do movimento (0 cima, 1 baixo, 2 esquerda, 3 direita)
+     * @return true se o movimento for válido, false caso contrário
      */
     @Override
-    public Object clone() {
-        Board clone = new Board();
-        for (int i = 0; i < dim; i++)
-            System.arraycopy(this.board[i], 0, clone.board[i], 0, dim);
+    public boolean canMove(int m) {
+        return zero >= 0 && m >= 0 && m < MOVES && geo.neighbors[zero * MOVES + m] >= 0;
+    }
 
-        return clone;
+    /**
+     * Move o espaço vazio na direção dada, alterando este tabuleiro sem criar nenhum objeto.
+     * @param m Direção do movimento (0 cima, 1 baixo, 2 esquerda, 3 direita)
+     * @return Custo do movimento
+     */
+    @Override
+    public double move(int m) {
+        slide(geo.neighbors[zero * MOVES + m]);
+        return getK();
     }
 
     /**
-     * Troca dois elementos no tabuleiro.
-     * @param row1 Linha do primeiro elemento
-     * @param col1 Coluna do primeiro elemento
-     * @param row2 Linha do segundo elemento
-     * @param col2 Coluna do segundo elemento
+     * Desfaz um movimento do espaço vazio, movendo-o na direção oposta.
+     * @param m Direção do movimento a desfazer
      */
-    private void swap(int row1, int col1, int row2, int col2) {
-        int temp = board[row1][col1];
-        board[row1][col1] = board[row2][col2];
-        board[row2][col2] = temp;
+    @Override
+    public void undo(int m) {
+        move(opposite(m));
     }
 
     /**
-     * Verifica se o movimento é válido, isto é, se a nova posição está dentro dos limites do tabuleiro.
-     * @param row Linha da nova posição
-     * @param col Coluna da nova posição
-     * @return true se o movimento for válido, false caso contrário
+     * Retorna a direção oposta a um movimento (cima/baixo e esquerda/direita).
+     * @param m Direção do movimento
+     * @return Direção oposta
      */
-    private boolean isValidMove(int row, int col) {
-        return row >= 0 && row < dim && col >= 0 && col < dim;
+    @Override
+    public int opposite(int m) {
+        return m ^ 1;
     }
 
     /**
-     * Encontra a posição do espaço vazio (representado por 0) no tabuleiro.
-     * @return Um array contendo a linha e a coluna do espaço vazio
-     * @throws IllegalStateException Se não houver espaço vazio no tabuleiro
+     * Estima o número de movimentos até ao objetivo com a distância de Manhattan mais os conflitos lineares.
+     * O valor é calculado de raiz apenas quando o objetivo muda; a partir daí cada movimento atualiza-o.
+     * Se o objetivo escolher a base de dados de padrões (até 5x5), é usado o maior dos dois valores.
+     * Se o objetivo escolher a tabela de distâncias, no 3x3 é retornada a distância exata.
+     * @param goal Tabuleiro objetivo
+     * @return Estimativa que nunca excede o número de movimentos necessários
      */
-    private int[] findZero() {
-        for (int i = 0; i < dim; i++) {
-            for (int j = 0; j < dim; j++) {
-                if (board[i][j] == 0) {
-                    return new int[]{i, j};
-                }
-            }
+    @Override
+    public double heuristic(Ilayout goal) {
+        Heuristic choice = ((Board) goal).heuristic;
+        GoalIndex gi = goalIndex((Board) goal);
+        if (choice == Heuristic.DISTANCE_TABLE && geo.dim == DistanceTable.DIM) {
+            int d = gi.distances().distance(tiles());
+            return d < 0 ? Double.POSITIVE_INFINITY : d;
+        }
+        if (index != gi) {
+            index = gi;
+            h = gi.estimate(this);
         }
-        throw new IllegalStateException("No zero found on the board");
+        if (choice == Heuristic.PATTERN_DATABASE && geo.dim <= PatternDatabase.MAX_DIM) return Math.max(h, gi.database().estimate(cellOfTile()));
+        return h;
+    }
+
+    /**
+     * Retorna a informação pré-calculada de um objetivo, guardando a última usada para evitar
+     * calculá-la novamente a cada estado.
+     * @param goal Tabuleiro objetivo
+     * @return Informação do objetivo
+     */
+    private static GoalIndex goalIndex(Board goal) {
+        GoalIndex last = lastGoal;
+        if (last == null || !last.goal.equals(goal)) {
+            last = new GoalIndex(goal);
+            lastGoal = last;
+        }
+        return last;
+    }
+
+    /**
+     * Retorna a célula onde se encontra cada peça do tabuleiro.
+     * @return Array indexado pela peça com a respetiva célula
+     */
+    private int[] cellOfTile() {
+        int[] cells = new int[geo.cells];
+        for (int cell = 0; cell < cells.length; cell++) cells[tileAt(cell)] = cell;
+        return cells;
+    }
+
+    /**
+     * Cria uma cópia independente do tabuleiro.
+     * @return Cópia do tabuleiro
+     */
+    @Override
+    public Imovable copy() {
+        return new Board(this);
+    }
+
+    /**
+     * Retorna o custo de movimentação. Neste caso, um custo uniforme de 1 por movimento.
+     * @return Custo de cada movimento
+     */
+    @Override
+    public double getK() {
+        return 1.0; // Custo uniforme por movimento
+    }
+
+    /**
+     * Clona o tabuleiro atual.
+     * @return Uma cópia do tabuleiro
+     */
+    @Override
+    public Object clone() {
+        return new Board(this);
     }
 
     /**
@@ -0,0 +1,317 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Classe DistanceTable que guarda a distância exata ao objetivo de todos os estados do 8-puzzle.
+ * Cada tabuleiro é convertido num índice denso pelo seu código de Lehmer (a posição da permutação das peças
+ * entre as 9! permutações) e a tabela é preenchida por uma procura em largura a partir do objetivo, nível a nível,
+ * com os estados de cada nível expandidos em paralelo.
+ * Cada entrada ocupa 4 bits e guarda a distância módulo 15 (15 marca os estados que não se alcançam a partir do
+ * objetivo). Como os vizinhos de um estado estão sempre a uma distância d - 1 ou d + 1, basta seguir, a partir de
+ * qualquer estado, o vizinho com o valor (d - 1) módulo 15 para descer pelo caminho ótimo até ao objetivo,
+ * e o número de passos dessa descida é a distância exata.
+ * A tabela é guardada num ficheiro e mapeada em memória, sendo construída apenas na primeira vez que o objetivo é usado.
+ * @author Andreia Qiu
+ * @author Eduarda Pereira
+ * @author Guilherme Carmo
+ * @version 1; 22/09/2024
+ * @inv table tem uma entrada de 4 bits por permutação das 9 peças; a entrada do objetivo é 0.
+ */
+class DistanceTable {
+    static final int DIM = 3; // Única dimensão suportada
+    private static final int CELLS = DIM * DIM; // Número de células
+    private static final int SIZE = 362880; // Número de permutações das peças (9!)
+    private static final int UNREACHABLE = 15; // Valor dos estados que não se alcançam a partir do objetivo
+    private static final int MODULUS = 15; // As distâncias são guardadas módulo este valor
+    private static final int[] FACTORIAL = {40320, 5040, 720, 120, 24, 6, 2, 1, 1}; // (8 - i)! para cada posição i
+    private static final String DIR_PROPERTY = "pdb.dir"; // Propriedade com a pasta dos ficheiros das tabelas
+    private static final Map<String, DistanceTable> cache = new HashMap<>(); // Tabelas já carregadas, por objetivo
+    private final int goalRank; // Índice do objetivo
+    private final ByteBuffer table; // Distâncias módulo 15, duas por byte (a de índice par nos 4 bits de baixo)
+
+    /**
+     * Construtor privado; as tabelas são obtidas através de forGoal.
+     * @param goalTiles Peça de cada célula no objetivo (0 para o espaço vazio)
+     * @param name Nome do ficheiro da tabela
+     */
+    private DistanceTable(int[] goalTiles, String name) {
+        this.goalRank = rank(goalTiles);
+        this.table = load(goalTiles, name);
+    }
+
+    /**
+     * Retorna a tabela de distâncias de um objetivo 3x3, carregando-a ou construindo-a se ainda não tiver sido
+     * usada nesta execução.
+     * @param goalTiles Peça de cada célula no objetivo (0 para o espaço vazio)
+     * @return Tabela de distâncias do objetivo
+     * @throws IllegalArgumentException Se o objetivo não for um tabuleiro 3x3
+     */
+    static synchronized DistanceTable forGoal(int[] goalTiles) {
+        if (goalTiles.length != CELLS) throw new IllegalArgumentException("Distance table requires a 3x3 board");
+        StringBuilder name = new StringBuilder("dist-").append(DIM).append('-');
+        for (int tile : goalTiles) name.append(tile);
+        return cache.computeIfAbsent(name.toString(), n -> new DistanceTable(goalTiles, n));
+    }
+
+    /**
+     * Calcula a distância exata de um tabuleiro ao objetivo, descendo pela tabela até ao objetivo.
+     * @param tiles Peça de cada célula do tabuleiro
+     * @return Número mínimo de movimentos até ao objetivo, ou -1 se o objetivo não for alcançável
+     */
+    int distance(int[] tiles) {
+        int[] current = tiles.clone();
+        int blank = blankOf(current);
+        int rank = rank(current);
+        int value = value(rank);
+        if (value == UNREACHABLE) return -1;
+        int d = 0;
+        while (rank != goalRank) {
+            blank = descend(current, blank, value);
+            rank = rank(current);
+            value = value(rank);
+            d++;
+        }
+        return d;
+    }
+
+    /**
+     * Resolve um tabuleiro 3x3 seguindo a tabela, sem procura: em cada passo o espaço vazio vai para a célula
+     * vizinha que fica um movimento mais perto do objetivo.
+     * @param s Tabuleiro inicial
+     * @return Iterador sobre os estados do caminho ótimo, ou null se o objetivo não for alcançável
+     */
+    Iterator<BestFirst.State> solve(Board s) {
+        int[] current = s.tiles();
+        int blank = blankOf(current);
+        int rank = rank(current);
+        int value = value(rank);
+        if (value == UNREACHABLE) return null;
+
+        List<BestFirst.State> path = new ArrayList<>();
+        Board layout = s;
+        BestFirst.State state = new BestFirst.State(layout, null);
+        path.add(state);
+        while (rank != goalRank) {
+            int next = descend(current, blank, value);
+            layout = (Board) layout.copy();
+            layout.move(direction(blank, next));
+            state = new BestFirst.State(layout, state);
+            path.add(state);
+            blank = next;
+            rank = rank(current);
+            value = value(rank);
+        }
+        return path.iterator();
+    }
+
+    /**
+     * Move o espaço vazio para a célula vizinha cuja distância é uma unidade menor.
+     * @param tiles Peça de cada célula, alterado pelo movimento
+     * @param blank Célula do espaço vazio
+     * @param value Valor da tabela do tabuleiro atual
+     * @return Nova célula do espaço vazio
+     */
+    private int descend(int[] tiles, int blank, int value) {
+        int wanted = (value + MODULUS - 1) % MODULUS;
+        for (int m = 0; m < 4; m++) {
+            int cell = neighbor(blank, m);
+            if (cell < 0) continue;
+            tiles[blank] = tiles[cell];
+            tiles[cell] = 0;
+            if (value(rank(tiles)) == wanted) return cell;
+            tiles[cell] = tiles[blank];
+            tiles[blank] = 0;
+        }
+        throw new IllegalStateException("Corrupted distance table");
+    }
+
+    /**
+     * Retorna o valor da tabela de um índice.
+     * @param rank Índice da permutação
+     * @return Distância módulo 15, ou 15 se o estado não for alcançável
+     */
+    private int value(int rank) {
+        return (table.get(rank >>> 1) >>> ((rank & 1) * 4)) & 0xF;
+    }
+
+    /**
+     * Calcula o código de Lehmer de um tabuleiro: para cada célula, o número de peças menores que ainda
+     * não apareceram, multiplicado pelo fatorial das células restantes.
+     * @param tiles Peça de cada célula
+     * @return Índice da permutação, entre 0 e 9! - 1
+     */
+    static int rank(int[] tiles) {
+        int index = 0;
+        int used = 0;
+        for (int i = 0; i < CELLS; i++) {
+            int tile = tiles[i];
+            index += (tile - Integer.bitCount(used & ((1 << tile) - 1))) * FACTORIAL[i];
+            used |= 1 << tile;
+        }
+        return index;
+    }
+
+    /**
+     * Converte um índice na permutação correspondente (operação inversa de rank).
+     * @param index Índice da permutação
+     * @param tiles Array onde é escrita a peça de cada célula
+     */
+    static void unrank(int index, int[] tiles) {
+        int used = 0;
+        for (int i = 0; i < CELLS; i++) {
+            int skip = index / FACTORIAL[i];
+            index %= FACTORIAL[i];
+            int tile = -1;
+            for (skip++; skip > 0; ) {
+                tile++;
+                if ((used & (1 << tile)) == 0) skip--;
+            }
+            tiles[i] = tile;
+            used |= 1 << tile;
+        }
+    }
+
+    /**
+     * Retorna a célula vizinha numa direção, ou -1 fora do tabuleiro.
+     * @param cell Célula
+     * @param m Direção (0 cima, 1 baixo, 2 esquerda, 3 direita)
+     * @return Célula vizinha
+     */
+    private static int neighbor(int cell, int m) {
+        switch (m) {
+            case 0: return cell >= DIM ? cell - DIM : -1;
+            case 1: return cell < CELLS - DIM ? cell + DIM : -1;
+            case 2: return cell % DIM > 0 ? cell - 1 : -1;
+            default: return cell % DIM < DIM - 1 ? cell + 1 : -1;
+        }
+    }
+
+    /**
+     * Retorna a direção do movimento do espaço vazio entre duas células vizinhas.
+     * @param from Célula de partida
+     * @param to Célula de chegada
+     * @return Direção do movimento (0 cima, 1 baixo, 2 esquerda, 3 direita)
+     */
+    private static int direction(int from, int to) {
+        for (int m = 0; m < 4; m++) {
+            if (neighbor(from, m) == to) return m;
+        }
+        throw new IllegalArgumentException("Cells are not adjacent");
+    }
+
+    /**
+     * Retorna a célula do espaço vazio.
+     * @param tiles Peça de cada célula
+     * @return Célula do espaço vazio
+     * @throws IllegalStateException Se não houver espaço vazio no tabuleiro
+     */
+    private static int blankOf(int[] tiles) {
+        for (int i = 0; i < CELLS; i++) if (tiles[i] == 0) return i;
+        throw new IllegalStateException("No zero found on the board");
+    }
+
+    /**
+     * Mapeia em memória a tabela do objetivo, construindo-a e guardando-a em ficheiro se ainda não existir.
+     * Se o ficheiro não puder ser escrito, a tabela fica apenas em memória.
+     * @param goalTiles Peça de cada célula no objetivo
+     * @param name Nome do ficheiro da tabela
+     * @return Tabela de distâncias
+     */
+    private ByteBuffer load(int[] goalTiles, String name) {
+        int bytes = SIZE / 2;
+        Path file = Paths.get(System.getProperty(DIR_PROPERTY, "pdb"), name + ".bin");
+        try {
+            if (!Files.isRegularFile(file) || Files.size(file) != bytes) {
+                byte[] built = build(goalTiles);
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), name, ".tmp");
+                Files.write(tmp, built);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+            }
+        } catch (IOException e) {
+            return ByteBuffer.wrap(build(goalTiles));
+        }
+    }
+
+    /**
+     * Constrói a tabela com uma procura em largura a partir do objetivo, nível a nível. Os estados da fronteira
+     * de cada nível são divididos por blocos de 64 índices e expandidos em paralelo; os estados visitados e a
+     * fronteira seguinte são conjuntos de bits atualizados atomicamente. No fim de cada nível, as distâncias da
+     * nova fronteira são escritas também em paralelo, por blocos, o que não gera conflitos porque cada bloco
+     * ocupa os seus próprios 32 bytes da tabela.
+     * @param goalTiles Peça de cada célula no objetivo
+     * @return Tabela com a distância módulo 15 de cada permutação
+     */
+    private static byte[] build(int[] goalTiles) {
+        int words = (SIZE + 63) / 64;
+        byte[] built = new byte[SIZE / 2];
+        Arrays.fill(built, (byte) 0xFF);
+        AtomicLongArray visited = new AtomicLongArray(words);
+        long[] frontier = new long[words];
+
+        int start = rank(goalTiles);
+        frontier[start >>> 6] = 1L << start;
+        visited.set(start >>> 6, 1L << start);
+        built[start >>> 1] &= (byte) ~(0xF << ((start & 1) * 4));
+
+        for (int d = 1; ; d++) {
+            long[] current = frontier;
+            AtomicLongArray next = new AtomicLongArray(words);
+            IntStream.range(0, words).parallel().forEach(w -> {
+                int[] tiles = new int[CELLS];
+                for (long bits = current[w]; bits != 0; bits &= bits - 1) {
+                    unrank(w * 64 + Long.numberOfTrailingZeros(bits), tiles);
+                    int blank = blankOf(tiles);
+                    for (int m = 0; m < 4; m++) {
+                        int cell = neighbor(blank, m);
+                        if (cell < 0) continue;
+                        tiles[blank] = tiles[cell];
+                        tiles[cell] = 0;
+                        int r = rank(tiles);
+                        tiles[cell] = tiles[blank];
+                        tiles[blank] = 0;
+                        long bit = 1L << r;
+                        if ((visited.getAndUpdate(r >>> 6, v -> v | bit) & bit) == 0) {
+                            next.getAndUpdate(r >>> 6, v -> v | bit);
+                        }
+                    }
+                }
+            });
+
+            frontier = new long[words];
+            boolean empty = true;
+            for (int w = 0; w < words; w++) {
+                frontier[w] = next.get(w);
+                if (frontier[w] != 0) empty = false;
+            }
+            if (empty) return built;
+
+            long[] level = frontier;
+            int value = d % MODULUS;
+            IntStream.range(0, words).parallel().forEach(w -> {
+                for (long bits = level[w]; bits != 0; bits &= bits - 1) {
+                    int r = w * 64 + Long.numberOfTrailingZeros(bits);
+                    int shift = (r & 1) * 4;
+                    built[r >>> 1] = (byte) ((built[r >>> 1] & ~(0xF << shift)) | (value << shift));
+                }
+            });
+        }
+    }
+}
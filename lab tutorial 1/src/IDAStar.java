@@ -0,0 +1,104 @@
+import java.util.*;
+/**
+ * Classe IDAStar que implementa o algoritmo de procura IDA* (Iterative Deepening A*).
+ * Faz procuras em profundidade sucessivas, limitadas pelo valor f = g + h, aumentando o limite para o menor
+ * f que o excedeu na iteração anterior. Os movimentos são aplicados e desfeitos num único layout (Imovable),
+ * pelo que a memória usada é proporcional à profundidade da solução e não ao número de estados visitados.
+ * @author Andreia Qiu
+ * @author Eduarda Pereira
+ * @author Guilherme Carmo
+ * @version 1; 22/09/2024
+ * @inv path[0..depth) contém os movimentos que levam do estado inicial ao layout atual.
+ */
+class IDAStar {
+    private Imovable current; // Layout alterado no lugar durante a procura
+    private Ilayout objective; // Estado objetivo a ser alcançado
+    private int[] path; // Movimentos aplicados desde o estado inicial
+    private int depth; // Número de movimentos em path
+    private boolean found; // Indica se a iteração atual encontrou o objetivo
+
+    /**
+     * Resolve o problema de procura encontrando um caminho ótimo do estado inicial ao objetivo.
+     * @param s Estado inicial do problema; tem de implementar Imovable
+     * @param goal Estado objetivo a ser alcançado
+     * @return Iterador para a sequência de estados que compõem o caminho da solução, ou um iterador vazio se não houver solução.
+     *         Como os estados visitados não são guardados, a procura só termina sem solução se o espaço de estados não tiver ciclos
+     * @throws IllegalArgumentException Se o estado inicial não suportar movimentos no lugar
+     * @see https://en.wikipedia.org/wiki/Iterative_deepening_A*
+     */
+    final public Iterator<BestFirst.State> solve(Ilayout s, Ilayout goal) {
+        if (!(s instanceof Imovable))
+            throw new IllegalArgumentException("IDA* requires an Imovable layout");
+        Imovable start = (Imovable) s;
+        current = start.copy(); // A procura altera apenas a cópia
+        objective = goal;
+        path = new int[16];
+        depth = 0;
+        found = false;
+
+        double bound = current.heuristic(objective);
+        while (true) {
+            double next = search(0.0, bound, -1);
+            if (found) return solutionPath(start);
+            if (next == Double.POSITIVE_INFINITY) return Collections.emptyIterator(); // Sem solução
+            bound = next; // O próximo limite é o menor f que excedeu o limite atual
+        }
+    }
+
+    /**
+     * Procura em profundidade a partir do layout atual, sem ultrapassar o limite dado.
+     * @param g Custo acumulado desde o estado inicial
+     * @param bound Limite de f para esta iteração
+     * @param last Último movimento aplicado (-1 na raiz), usado para não desfazer o movimento anterior
+     * @return Menor valor de f que excedeu o limite, ou infinito se nenhum o excedeu
+     */
+    private double search(double g, double bound, int last) {
+        double f = g + current.heuristic(objective);
+        if (f > bound) return f;
+        if (current.isGoal(objective)) {
+            found = true;
+            return f;
+        }
+        double min = Double.POSITIVE_INFINITY;
+        int forbidden = last < 0 ? -1 : current.opposite(last);
+        for (int m = 0; m < current.maxMoves(); m++) {
+            if (m == forbidden || !current.canMove(m)) continue;
+            double cost = current.move(m);
+            push(m);
+            double t = search(g + cost, bound, m);
+            if (found) return t; // Mantém o caminho e o layout no objetivo
+            depth--;
+            current.undo(m);
+            if (t < min) min = t;
+        }
+        return min;
+    }
+
+    /**
+     * Acrescenta um movimento ao caminho atual, aumentando o array quando necessário.
+     * @param m Movimento aplicado
+     */
+    private void push(int m) {
+        if (depth == path.length) path = Arrays.copyOf(path, path.length * 2);
+        path[depth++] = m;
+    }
+
+    /**
+     * Reconstrói a sequência de estados da solução, reaplicando os movimentos a cópias do estado inicial.
+     * @param start Estado inicial
+     * @return Iterador para a sequência de estados da solução
+     */
+    private Iterator<BestFirst.State> solutionPath(Imovable start) {
+        List<BestFirst.State> solutionPath = new ArrayList<>(depth + 1);
+        Imovable layout = start;
+        BestFirst.State state = new BestFirst.State(layout, null);
+        solutionPath.add(state);
+        for (int i = 0; i < depth; i++) {
+            layout = layout.copy();
+            layout.move(path[i]);
+            state = new BestFirst.State(layout, state);
+            solutionPath.add(state);
+        }
+        return solutionPath.iterator();
+    }
+}
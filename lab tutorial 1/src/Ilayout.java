@@ -28,4 +28,18 @@ interface Ilayout {
      * @return Custo da transição para o sucessor.
      */
     double getK();
+
+    /**
+     * Calcula uma estimativa admissível do custo do layout atual até ao layout objetivo.
+     * @param goal Layout objetivo.
+     * @return Estimativa que nunca excede o custo real até ao objetivo.
+     */
+    double heuristic(Ilayout goal);
+
+    /**
+     * Retorna uma chave de 64 bits que identifica o layout, usada pelo algoritmo de procura
+     * para reconhecer estados repetidos sem guardar os próprios layouts.
+     * @return Chave do layout; layouts iguais devem ter chaves iguais.
+     */
+    long key();
 }
@@ -0,0 +1,51 @@
+/**
+ * Interface Imovable estende Ilayout com movimentos aplicados no próprio layout.
+ * Permite que algoritmos em profundidade (como o IDA*) percorram o espaço de estados alterando um único
+ * layout e desfazendo cada movimento ao recuar, em vez de criar um novo layout por sucessor.
+ * Os movimentos são identificados por índices entre 0 e maxMoves() - 1.
+ * @author Andreia Qiu
+ * @author Eduarda Pereira
+ * @author Guilherme Carmo
+ * @version 1; 22/09/2024
+ */
+interface Imovable extends Ilayout {
+
+    /**
+     * Retorna o número de movimentos distintos que o layout pode suportar.
+     * @return Número máximo de movimentos a partir de qualquer layout.
+     */
+    int maxMoves();
+
+    /**
+     * Verifica se um movimento é válido no layout atual.
+     * @param m Índice do movimento.
+     * @return true se o movimento puder ser aplicado; false caso contrário.
+     */
+    boolean canMove(int m);
+
+    /**
+     * Aplica um movimento válido ao próprio layout.
+     * @param m Índice do movimento.
+     * @return Custo do movimento aplicado.
+     */
+    double move(int m);
+
+    /**
+     * Desfaz um movimento aplicado anteriormente com move(m), repondo o layout anterior.
+     * @param m Índice do movimento a desfazer.
+     */
+    void undo(int m);
+
+    /**
+     * Retorna o movimento que anula o movimento dado.
+     * @param m Índice do movimento.
+     * @return Índice do movimento inverso.
+     */
+    int opposite(int m);
+
+    /**
+     * Cria uma cópia independente do layout, que pode ser alterada sem afetar o original.
+     * @return Cópia do layout.
+     */
+    Imovable copy();
+}
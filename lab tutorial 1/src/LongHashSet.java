@@ -0,0 +1,120 @@
+import java.util.Arrays;
+
+/**
+ * Classe LongHashSet que implementa um conjunto de valores long com endereçamento aberto e sondagem linear.
+ * Guarda as chaves diretamente num array de primitivos, evitando a criação de objetos Long e de entradas
+ * de HashMap por cada estado fechado.
+ * @author Andreia Qiu
+ * @author Eduarda Pereira
+ * @author Guilherme Carmo
+ * @version 1; 22/09/2024
+ * @inv A tabela tem sempre uma capacidade potência de 2 e nunca fica mais do que meio cheia;
+ *      o valor 0 marca posições livres e é guardado à parte em hasZero.
+ */
+class LongHashSet {
+    private static final int MIN_CAPACITY = 16; // Capacidade inicial mínima da tabela
+    private long[] table; // Tabela de chaves (0 representa uma posição livre)
+    private int mask; // Máscara para reduzir o hash ao tamanho da tabela
+    private int size; // Número de chaves guardadas
+    private boolean hasZero; // Indica se a chave 0 pertence ao conjunto
+
+    /**
+     * Construtor padrão que cria um conjunto vazio.
+     */
+    public LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Construtor que cria um conjunto vazio preparado para um número esperado de chaves.
+     * @param expected Número de chaves esperado
+     */
+    public LongHashSet(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < 2L * expected) capacity <<= 1;
+        table = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Mistura os bits da chave para que chaves parecidas fiquem espalhadas pela tabela.
+     * @param key Chave a misturar
+     * @return Posição inicial da chave na tabela
+     */
+    private int slot(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+
+    /**
+     * Adiciona uma chave ao conjunto.
+     * @param key Chave a adicionar
+     * @return true se a chave ainda não existia, false caso contrário
+     */
+    public boolean add(long key) {
+        if (key == 0) {
+            if (hasZero) return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+        int i = slot(key);
+        while (table[i] != 0) {
+            if (table[i] == key) return false;
+            i = (i + 1) & mask;
+        }
+        table[i] = key;
+        if (++size * 2 > table.length) grow();
+        return true;
+    }
+
+    /**
+     * Verifica se uma chave pertence ao conjunto.
+     * @param key Chave a procurar
+     * @return true se a chave existir, false caso contrário
+     */
+    public boolean contains(long key) {
+        if (key == 0) return hasZero;
+        int i = slot(key);
+        while (table[i] != 0) {
+            if (table[i] == key) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Retorna o número de chaves no conjunto.
+     * @return Número de chaves guardadas
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove todas as chaves do conjunto, mantendo a capacidade atual.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+        size = 0;
+        hasZero = false;
+    }
+
+    /**
+     * Duplica a capacidade da tabela e volta a inserir todas as chaves.
+     */
+    private void grow() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        mask = table.length - 1;
+        for (long key : old) {
+            if (key != 0) {
+                int i = slot(key);
+                while (table[i] != 0) i = (i + 1) & mask;
+                table[i] = key;
+            }
+        }
+    }
+}
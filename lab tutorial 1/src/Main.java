@@ -4,6 +4,11 @@ import java.util.Scanner;
 /**
  * Classe Main que executa a resolução do problema de layout utilizando o algoritmo Best-First.
  * O programa lê o estado inicial e o estado objetivo do tabuleiro e tenta encontrar a solução.
+ * Com o argumento --ida usa o algoritmo IDA*, que gasta memória proporcional apenas à profundidade da solução;
+ * com --pdb a heurística também consulta a base de dados de padrões.
+ * Com --table, no 8-puzzle, a solução é lida da tabela de distâncias de todos os estados, sem procura
+ * (com --ida, o IDA* usa essa tabela como heurística exata).
+ * Aceita tabuleiros NxN (8-puzzle, 15-puzzle, 24-puzzle, ...), com um carácter por peça ou peças separadas por vírgulas.
  * Se houver uma solução, imprime o caminho até o objetivo e o custo total.
  * @author Andreia Qiu
  * @author Eduarda Pereira
@@ -15,17 +20,40 @@ public class Main {
     /**
      * Método principal que inicia a execução do programa.
      * Lê o estado inicial e o estado objetivo do tabuleiro a partir da entrada, resolve o problema e imprime o resultado.
-     * @param args Argumentos da linha de comando
+     * @param args Argumentos da linha de comando (--ida para usar o IDA* em vez do Best-First, --pdb para usar a base de dados de padrões,
+     *             --table para usar a tabela de distâncias do 8-puzzle)
      * @throws Exception Se ocorrer algum erro durante a execução
      */
     public static void main (String [] args) throws Exception {
         Scanner sc = new Scanner(System.in);
 
-        // Cria uma instância do algoritmo Best-First
-        BestFirst s = new BestFirst();
+        boolean ida = false;
+        boolean pdb = false;
+        boolean table = false;
+        for (String arg : args) {
+            if (arg.equals("--ida")) ida = true;
+            else if (arg.equals("--pdb")) pdb = true;
+            else if (arg.equals("--table")) table = true;
+        }
 
         // Lê o estado inicial e o estado objetivo a partir da entrada e resolve o problema
-        Iterator<BestFirst.State> it = s.solve(new Board(sc.next()), new Board(sc.next()));
+        Board initial = new Board(sc.next());
+        // A heurística escolhida acompanha o objetivo passado à procura
+        Board goal = new Board(sc.next()).withHeuristic(table ? Board.Heuristic.DISTANCE_TABLE
+                : pdb ? Board.Heuristic.PATTERN_DATABASE : Board.Heuristic.MANHATTAN);
+        if (table && (initial.tiles().length != DistanceTable.DIM * DistanceTable.DIM
+                || goal.tiles().length != initial.tiles().length)) {
+            // A tabela de distâncias só existe para o 8-puzzle
+            System.err.println("usage: --table requires a 3x3 board");
+            sc.close();
+            System.exit(1);
+        }
+        Iterator<BestFirst.State> it;
+        if (table && !ida) {
+            it = DistanceTable.forGoal(goal.tiles()).solve(initial);
+        } else {
+            it = ida ? new IDAStar().solve(initial, goal) : new BestFirst().solve(initial, goal);
+        }
 
         // Verifica se há solução
         if (it == null) {
@@ -0,0 +1,283 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Classe PatternDatabase que implementa uma heurística aditiva de bases de dados de padrões disjuntos
+ * para puzzles de peças deslizantes NxN.
+ * As peças são divididas em grupos disjuntos; para cada grupo, uma procura em largura para trás a partir do
+ * objetivo calcula o número mínimo de movimentos das peças do grupo necessários para as colocar no sítio,
+ * ignorando as restantes. Como cada movimento desloca uma única peça, a soma dos valores dos grupos é admissível.
+ * Cada tabela é guardada num ficheiro (um byte por configuração do grupo) e mapeada em memória,
+ * sendo construída apenas na primeira vez que o objetivo é usado.
+ * @author Andreia Qiu
+ * @author Eduarda Pereira
+ * @author Guilherme Carmo
+ * @version 1; 22/09/2024
+ * @inv tables[i] tem uma entrada por cada colocação ordenada das peças de patterns[i] nas células do tabuleiro.
+ */
+class PatternDatabase {
+    static final int MAX_DIM = 5; // Maior dimensão suportada (as células ocupadas são guardadas numa máscara int)
+    private static final String DIR_PROPERTY = "pdb.dir"; // Propriedade com a pasta dos ficheiros das tabelas
+    private static final Map<String, PatternDatabase> cache = new HashMap<>(); // Bases já carregadas, por objetivo
+    private final int dim; // Dimensão do tabuleiro
+    private final int cells; // Número de células (dim * dim)
+    private final int[][] patterns; // Peças de cada grupo
+    private final ByteBuffer[] tables; // Distâncias de cada grupo, indexadas pela colocação das suas peças
+
+    /**
+     * Construtor privado; as bases são obtidas através de forGoal.
+     * @param dim Dimensão do tabuleiro
+     * @param goalTiles Peça de cada célula no objetivo (0 para o espaço vazio)
+     * @param name Nome usado nos ficheiros das tabelas
+     */
+    private PatternDatabase(int dim, int[] goalTiles, String name) {
+        this.dim = dim;
+        this.cells = dim * dim;
+        this.patterns = partition(goalTiles, dim <= 3 ? 4 : dim == 4 ? 5 : 4);
+        this.tables = new ByteBuffer[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            tables[i] = load(goalTiles, patterns[i], name + "-" + i);
+        }
+    }
+
+    /**
+     * Retorna a base de dados de padrões para um objetivo, carregando ou construindo as tabelas se ainda
+     * não tiverem sido usadas nesta execução.
+     * @param dim Dimensão do tabuleiro
+     * @param goalTiles Peça de cada célula no objetivo (0 para o espaço vazio)
+     * @return Base de dados de padrões do objetivo
+     */
+    static synchronized PatternDatabase forGoal(int dim, int[] goalTiles) {
+        StringBuilder name = new StringBuilder("pdb-").append(dim).append('-');
+        for (int tile : goalTiles) name.append(Character.forDigit(tile, Character.MAX_RADIX));
+        return cache.computeIfAbsent(name.toString(), n -> new PatternDatabase(dim, goalTiles, n));
+    }
+
+    /**
+     * Calcula a soma das distâncias dos grupos para uma configuração do tabuleiro.
+     * @param cellOfTile Célula onde se encontra cada peça (indexado pela peça)
+     * @return Estimativa admissível do número de movimentos até ao objetivo
+     */
+    int estimate(int[] cellOfTile) {
+        int h = 0;
+        for (int i = 0; i < patterns.length; i++) {
+            h += tables[i].get(rank(patterns[i], cellOfTile)) & 0xFF;
+        }
+        return h;
+    }
+
+    /**
+     * Divide as peças em grupos consecutivos, pela ordem das suas células no objetivo.
+     * @param goalTiles Peça de cada célula no objetivo
+     * @param size Tamanho máximo de cada grupo
+     * @return Peças de cada grupo
+     */
+    private static int[][] partition(int[] goalTiles, int size) {
+        int[] tiles = Arrays.stream(goalTiles).filter(t -> t != 0).toArray();
+        int[][] groups = new int[(tiles.length + size - 1) / size][];
+        for (int i = 0; i < groups.length; i++) {
+            groups[i] = Arrays.copyOfRange(tiles, i * size, Math.min(tiles.length, (i + 1) * size));
+        }
+        return groups;
+    }
+
+    /**
+     * Número de colocações ordenadas de k peças em n células: n! / (n - k)!.
+     * @param k Número de peças do grupo
+     * @return Tamanho da tabela do grupo
+     */
+    private int tableSize(int k) {
+        int size = 1;
+        for (int i = 0; i < k; i++) size *= cells - i;
+        return size;
+    }
+
+    /**
+     * Converte as células das peças de um grupo num índice da tabela. A i-ésima peça contribui com a posição
+     * da sua célula entre as células ainda não ocupadas pelas peças anteriores do grupo.
+     * @param pattern Peças do grupo
+     * @param cellOfTile Célula onde se encontra cada peça
+     * @return Índice da configuração na tabela do grupo
+     */
+    private int rank(int[] pattern, int[] cellOfTile) {
+        int index = 0;
+        int used = 0;
+        for (int i = 0; i < pattern.length; i++) {
+            int cell = cellOfTile[pattern[i]];
+            index = index * (cells - i) + cell - Integer.bitCount(used & ((1 << cell) - 1));
+            used |= 1 << cell;
+        }
+        return index;
+    }
+
+    /**
+     * Converte um índice da tabela nas células das peças do grupo (operação inversa de rank).
+     * @param pattern Peças do grupo
+     * @param index Índice da configuração
+     * @param free Array auxiliar com uma posição por peça do grupo
+     * @param cellOfTile Array onde é escrita a célula de cada peça do grupo (indexado pela peça)
+     */
+    private void unrank(int[] pattern, int index, int[] free, int[] cellOfTile) {
+        for (int i = pattern.length - 1; i >= 0; i--) {
+            free[i] = index % (cells - i);
+            index /= cells - i;
+        }
+        int used = 0;
+        for (int i = 0; i < pattern.length; i++) {
+            int cell = -1;
+            for (int skip = free[i]; skip >= 0; ) {
+                cell++;
+                if ((used & (1 << cell)) == 0) skip--;
+            }
+            cellOfTile[pattern[i]] = cell;
+            used |= 1 << cell;
+        }
+    }
+
+    /**
+     * Mapeia em memória a tabela de um grupo, construindo-a e guardando-a em ficheiro se ainda não existir.
+     * Se o ficheiro não puder ser escrito, a tabela fica apenas em memória.
+     * @param goalTiles Peça de cada célula no objetivo
+     * @param pattern Peças do grupo
+     * @param name Nome do ficheiro da tabela
+     * @return Tabela de distâncias do grupo
+     */
+    private ByteBuffer load(int[] goalTiles, int[] pattern, String name) {
+        int size = tableSize(pattern.length);
+        Path file = Paths.get(System.getProperty(DIR_PROPERTY, "pdb"), name + ".bin");
+        try {
+            if (!Files.isRegularFile(file) || Files.size(file) != size) {
+                byte[] table = build(goalTiles, pattern);
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), name, ".tmp");
+                Files.write(tmp, table);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        } catch (IOException e) {
+            return ByteBuffer.wrap(build(goalTiles, pattern));
+        }
+    }
+
+    /**
+     * Constrói a tabela de um grupo com uma procura em largura 0-1 para trás a partir do objetivo.
+     * O estado abstrato é formado pelas células das peças do grupo e pela célula do espaço vazio; mover uma peça
+     * do grupo custa 1 e mover qualquer outra peça custa 0. A tabela guarda, para cada colocação das peças,
+     * a menor distância entre todas as posições do espaço vazio.
+     * @param goalTiles Peça de cada célula no objetivo
+     * @param pattern Peças do grupo
+     * @return Distância de cada configuração do grupo (255 se inalcançável)
+     */
+    private byte[] build(int[] goalTiles, int[] pattern) {
+        int k = pattern.length;
+        int size = tableSize(k);
+        int[] cellOfTile = new int[cells];
+        int blankGoal = 0;
+        for (int c = 0; c < cells; c++) {
+            cellOfTile[goalTiles[c]] = c;
+            if (goalTiles[c] == 0) blankGoal = c;
+        }
+
+        byte[] dist = new byte[size * cells];
+        Arrays.fill(dist, (byte) -1);
+        IntDeque queue = new IntDeque();
+        int start = rank(pattern, cellOfTile) * cells + blankGoal;
+        dist[start] = 0;
+        queue.addLast(start);
+
+        int[] free = new int[k];
+        while (!queue.isEmpty()) {
+            int state = queue.pollFirst();
+            int d = dist[state] & 0xFF;
+            int index = state / cells;
+            int blank = state % cells;
+            unrank(pattern, index, free, cellOfTile);
+            for (int dir = 0; dir < 4; dir++) {
+                int cell;
+                if (dir == 0) cell = blank >= dim ? blank - dim : -1;
+                else if (dir == 1) cell = blank < cells - dim ? blank + dim : -1;
+                else if (dir == 2) cell = blank % dim > 0 ? blank - 1 : -1;
+                else cell = blank % dim < dim - 1 ? blank + 1 : -1;
+                if (cell < 0) continue;
+
+                int moved = -1; // Peça do grupo que ocupa a célula para onde o vazio vai
+                for (int tile : pattern) if (cellOfTile[tile] == cell) moved = tile;
+                int next;
+                int nd;
+                if (moved < 0) {
+                    next = index * cells + cell;
+                    nd = d;
+                } else {
+                    cellOfTile[moved] = blank;
+                    next = rank(pattern, cellOfTile) * cells + cell;
+                    cellOfTile[moved] = cell;
+                    nd = d + 1;
+                }
+                if ((dist[next] & 0xFF) > nd) {
+                    dist[next] = (byte) nd;
+                    if (nd == d) queue.addFirst(next);
+                    else queue.addLast(next);
+                }
+            }
+        }
+
+        byte[] table = new byte[size];
+        for (int index = 0; index < size; index++) {
+            int best = 0xFF;
+            for (int blank = 0; blank < cells; blank++) best = Math.min(best, dist[index * cells + blank] & 0xFF);
+            table[index] = (byte) best;
+        }
+        return table;
+    }
+
+    /**
+     * Fila dupla de inteiros em array circular, usada pela procura em largura 0-1.
+     */
+    private static final class IntDeque {
+        private int[] items = new int[1024];
+        private int head;
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void addFirst(int v) {
+            if (size == items.length) grow();
+            head = (head - 1 + items.length) % items.length;
+            items[head] = v;
+            size++;
+        }
+
+        void addLast(int v) {
+            if (size == items.length) grow();
+            items[(head + size) % items.length] = v;
+            size++;
+        }
+
+        int pollFirst() {
+            int v = items[head];
+            head = (head + 1) % items.length;
+            size--;
+            return v;
+        }
+
+        private void grow() {
+            int[] bigger = new int[items.length * 2];
+            for (int i = 0; i < size; i++) bigger[i] = items[(head + i) % items.length];
+            items = bigger;
+            head = 0;
+        }
+    }
+}
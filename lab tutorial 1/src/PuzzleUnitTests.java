@@ -1,7 +1,15 @@
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.Test;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
 
 /**
  * Classe PuzzleUnitTests contém testes unitários para verificar o funcionamento da classe Board.
@@ -48,4 +56,191 @@ public class PuzzleUnitTests {
         assertEquals(b.toString(), writer.toString());
         pw.close();
     }
+
+    /**
+     * Testa se tabuleiros com o mesmo conteúdo são iguais e têm o mesmo código hash e a mesma chave,
+     * mesmo quando um deles é obtido por movimentos a partir de outro tabuleiro.
+     */
+    @Test
+    public void testEqualsAndHashCode() {
+        Board b1 = new Board("123405678");
+        Board b2 = new Board("123405678");
+        assertEquals(b1, b2);
+        assertEquals(b1.hashCode(), b2.hashCode());
+        assertEquals(b1.key(), b2.key());
+
+        // Mover o espaço vazio para a esquerda e de volta para a direita repõe o tabuleiro original
+        Board left = (Board) b1.children().stream()
+                .filter(c -> c.equals(new Board("123045678"))).findFirst().orElseThrow();
+        assertTrue(left.children().contains(b2));
+        assertNotEquals(b1, left);
+    }
+
+    /**
+     * Testa o construtor e o método toString num tabuleiro 4x4, com peças acima de 9 representadas por letras
+     * ou separadas por vírgulas.
+     */
+    @Test
+    public void testConstructor4x4() {
+        Board b = new Board("123456789ABCDEF0");
+        StringWriter writer = new StringWriter();
+        PrintWriter pw = new PrintWriter(writer);
+        pw.println("1234");
+        pw.println("5678");
+        pw.println("9ABC");
+        pw.println("DEF ");
+
+        assertEquals(b.toString(), writer.toString());
+        assertEquals(b, new Board("1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,0"));
+        pw.close();
+    }
+
+    /**
+     * Testa se a heurística atualizada a cada movimento coincide com a calculada de raiz no tabuleiro resultante.
+     */
+    @Test
+    public void testIncrementalHeuristic() {
+        Board goal = new Board("123456789ABCDEF0");
+        Board b = new Board("5E29A7C8D3B16F04");
+        b.heuristic(goal);
+        for (Ilayout child : b.children()) {
+            String text = child.toString().replace("\n", "").replace(' ', '0');
+            assertEquals(new Board(text).heuristic(goal), child.heuristic(goal));
+        }
+    }
+
+    /**
+     * Testa se a tabela de distâncias do 8-puzzle dá o custo ótimo e um caminho com esse número de movimentos.
+     * @throws IOException Se a pasta temporária não puder ser criada ou apagada
+     */
+    @Test
+    public void testDistanceTable() throws IOException {
+        inTemporaryPdbDir(this::checkDistanceTable);
+    }
+
+    /**
+     * Testa se a heurística com a base de dados de padrões, em estados obtidos por movimentos aleatórios a partir
+     * do objetivo, nunca excede a distância ótima dada pelo Best-First e nunca é menor do que a distância de
+     * Manhattan com os conflitos lineares. Objetivos iguais com heurísticas diferentes são usados alternadamente
+     * no mesmo tabuleiro, o que verifica também que a escolha da heurística de um objetivo não afeta os outros.
+     * @throws IOException Se a pasta temporária não puder ser criada ou apagada
+     */
+    @Test
+    public void testPatternDatabaseHeuristic() throws IOException {
+        inTemporaryPdbDir(() -> {
+            Board manhattan = new Board("123456780");
+            Board pdb = manhattan.withHeuristic(Board.Heuristic.PATTERN_DATABASE);
+            Board table = manhattan.withHeuristic(Board.Heuristic.DISTANCE_TABLE);
+            Random random = new Random(4);
+            for (int i = 0; i < 30; i++) {
+                Ilayout b = manhattan;
+                int steps = 10 + random.nextInt(40);
+                for (int step = 0; step < steps; step++) {
+                    List<Ilayout> children = b.children();
+                    b = children.get(random.nextInt(children.size()));
+                }
+                double h = b.heuristic(manhattan);
+                double hPdb = b.heuristic(pdb);
+                double exact = b.heuristic(table);
+                assertEquals(h, b.heuristic(manhattan));
+                assertEquals(exact, cost(new BestFirst().solve(b, manhattan)));
+                assertTrue(hPdb >= h, "Base de dados de padrões abaixo de Manhattan em\n" + b);
+                assertTrue(hPdb <= exact, "Heurística não admissível em\n" + b);
+            }
+        });
+    }
+
+    /**
+     * Testa se o IDA* encontra soluções com o mesmo custo que o Best-First, em estados do 8-puzzle e do 15-puzzle
+     * obtidos por movimentos aleatórios a partir do objetivo, e se a solução é uma sequência de movimentos válidos
+     * do estado inicial até ao objetivo.
+     */
+    @Test
+    public void testIDAStarMatchesBestFirst() {
+        Random random = new Random(2);
+        for (String text : new String[] {"123456780", "123456789ABCDEF0"}) {
+            Board goal = new Board(text);
+            for (int i = 0; i < 15; i++) {
+                Ilayout b = goal;
+                int steps = 10 + random.nextInt(30);
+                for (int step = 0; step < steps; step++) {
+                    List<Ilayout> children = b.children();
+                    b = children.get(random.nextInt(children.size()));
+                }
+                Board start = parse(b.toString());
+
+                Iterator<BestFirst.State> it = new IDAStar().solve(start, goal);
+                Board previous = null;
+                BestFirst.State last = null;
+                while (it.hasNext()) {
+                    last = it.next();
+                    Board current = parse(last.toString());
+                    if (previous == null) assertEquals(start, current);
+                    else assertTrue(previous.children().contains(current), "Movimento inválido para\n" + current);
+                    previous = current;
+                }
+                assertEquals(goal, previous);
+                assertEquals(cost(new BestFirst().solve(start, goal)), last.getG(), "Custo diferente em\n" + start);
+            }
+        }
+    }
+
+    /**
+     * Converte a representação textual de um tabuleiro (toString) de volta num tabuleiro.
+     * @param text Linhas do tabuleiro, com um espaço no lugar do espaço vazio
+     * @return Tabuleiro correspondente
+     */
+    private static Board parse(String text) {
+        return new Board(text.replace("\n", "").replace(' ', '0'));
+    }
+
+    /**
+     * Retorna o custo do último estado de uma solução.
+     * @param it Iterador sobre os estados da solução
+     * @return Custo total da solução
+     */
+    private static double cost(Iterator<BestFirst.State> it) {
+        BestFirst.State last = null;
+        while (it.hasNext()) last = it.next();
+        return last.getG();
+    }
+
+    /**
+     * Executa uma verificação com as tabelas de distâncias e as bases de dados de padrões guardadas numa pasta
+     * temporária, apagada no fim, para os testes não escreverem em ./pdb.
+     * @param check Verificação a executar
+     * @throws IOException Se a pasta temporária não puder ser criada ou apagada
+     */
+    private static void inTemporaryPdbDir(Runnable check) throws IOException {
+        Path dir = Files.createTempDirectory("pdb");
+        String previous = System.setProperty("pdb.dir", dir.toString());
+        try {
+            check.run();
+        } finally {
+            if (previous == null) System.clearProperty("pdb.dir");
+            else System.setProperty("pdb.dir", previous);
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Verifica as distâncias e o caminho dados pela tabela de distâncias do objetivo 123456780.
+     */
+    private void checkDistanceTable() {
+        Board goal = new Board("123456780");
+        DistanceTable table = DistanceTable.forGoal(goal.tiles());
+        assertEquals(31, table.distance(new Board("867254301").tiles()));
+        assertEquals(0, table.distance(goal.tiles()));
+        assertEquals(-1, table.distance(new Board("213456780").tiles()));
+
+        Iterator<BestFirst.State> it = table.solve(new Board("867254301"));
+        BestFirst.State last = null;
+        while (it.hasNext()) last = it.next();
+        assertEquals(31, (int) last.getG());
+        assertEquals(goal.toString(), last.toString());
+    }
 }